@@ -0,0 +1,128 @@
+package com.schoolapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs password verification on a small dedicated pool instead of the request thread, so a burst
+ * of logins cannot occupy every Tomcat worker. A check that is not started within the queue
+ * timeout, or that finds the queue full, fails fast with {@link LoginCapacityExceededException};
+ * so does one that started but did not finish within the verify timeout. The queue is kept well
+ * below the Tomcat thread count, so waiting logins can never hold every worker. Encoding (registration, password change) stays on the calling thread.
+ */
+public class AdmissionControlledPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long queueTimeoutNanos;
+    private final long verifyTimeoutNanos;
+
+    private final Timer verificationTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public AdmissionControlledPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity,
+                                              Duration queueTimeout, Duration verifyTimeout, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.verifyTimeoutNanos = verifyTimeout.toNanos();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-verify-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("login.password.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password checks waiting for a verification thread")
+                .register(meterRegistry);
+        Gauge.builder("login.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password checks currently running")
+                .register(meterRegistry);
+        this.verificationTimer = Timer.builder("login.password.verification")
+                .description("Time spent hashing a password for verification")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("login.password.queue.wait")
+                .description("Time a password check waited for a verification thread")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("login.password.rejected")
+                .description("Password checks refused because the verification pool was saturated")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long enqueuedAt = System.nanoTime();
+        // Claimed either by the worker when it starts or by the caller when it gives up waiting
+        AtomicBoolean claimed = new AtomicBoolean();
+
+        Future<Boolean> verification;
+        try {
+            verification = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return false;
+                }
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return verificationTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new LoginCapacityExceededException("Too many sign-ins in progress, please try again");
+        }
+
+        try {
+            return verification.get(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (claimed.compareAndSet(false, true)) {
+                // Never started: drop it from the queue and tell the user to retry
+                executor.remove((Runnable) verification);
+                rejectedCounter.increment();
+                throw new LoginCapacityExceededException("Too many sign-ins in progress, please try again");
+            }
+            return awaitStarted(verification);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginCapacityExceededException("Sign-in was interrupted, please try again");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private boolean awaitStarted(Future<Boolean> verification) {
+        try {
+            return verification.get(verifyTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            verification.cancel(true);
+            rejectedCounter.increment();
+            throw new LoginCapacityExceededException("Too many sign-ins in progress, please try again");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginCapacityExceededException("Sign-in was interrupted, please try again");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+}
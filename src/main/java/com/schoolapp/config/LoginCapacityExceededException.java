@@ -0,0 +1,15 @@
+package com.schoolapp.config;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+/**
+ * Raised when a password check could not be admitted to the verification pool in time.
+ * Extends {@link InternalAuthenticationServiceException} so the authentication manager fails
+ * fast instead of retrying the check with another provider.
+ */
+public class LoginCapacityExceededException extends InternalAuthenticationServiceException {
+
+    public LoginCapacityExceededException(String message) {
+        super(message);
+    }
+}
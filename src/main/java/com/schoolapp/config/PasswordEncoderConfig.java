@@ -0,0 +1,41 @@
+package com.schoolapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Kept apart from {@link SecurityConfig} because UserService needs the encoder and SecurityConfig needs UserService.
+ */
+@Configuration
+@Slf4j
+public class PasswordEncoderConfig {
+
+    // At most this share of the Tomcat workers may be waiting on a password check
+    private static final int MAX_WAITING_WORKER_DIVISOR = 4;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength,
+                                           @Value("${app.security.login.pool-size:0}") int poolSize,
+                                           @Value("${app.security.login.queue-capacity:16}") int queueCapacity,
+                                           @Value("${app.security.login.queue-timeout:2s}") Duration queueTimeout,
+                                           @Value("${app.security.login.verify-timeout:5s}") Duration verifyTimeout,
+                                           @Value("${server.tomcat.threads.max:200}") int tomcatThreads,
+                                           MeterRegistry meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        int maxQueue = Math.max(1, tomcatThreads / MAX_WAITING_WORKER_DIVISOR - threads);
+        if (queueCapacity > maxQueue) {
+            log.warn("app.security.login.queue-capacity={} would let logins hold too many of the {} Tomcat threads; using {}",
+                    queueCapacity, tomcatThreads, maxQueue);
+            queueCapacity = maxQueue;
+        }
+        return new AdmissionControlledPasswordEncoder(new BCryptPasswordEncoder(strength),
+                threads, queueCapacity, queueTimeout, verifyTimeout, meterRegistry);
+    }
+}
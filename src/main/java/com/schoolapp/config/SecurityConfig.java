@@ -1,19 +1,24 @@
 package com.schoolapp.config;
 
+import com.schoolapp.service.ApiTokenService;
 import com.schoolapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.web.session.HttpSessionEventPublisher;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
 
 @Configuration
 @EnableWebSecurity
@@ -22,9 +27,10 @@ import org.springframework.security.web.session.HttpSessionEventPublisher;
 public class SecurityConfig {
 
     private final UserService userService;
+    private final ApiTokenService apiTokenService;
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, SessionRegistry sessionRegistry) throws Exception {
         http
             .csrf(csrf -> csrf
                 .ignoringRequestMatchers("/api/**") // Disable CSRF for API endpoints
@@ -36,6 +42,12 @@ public class SecurityConfig {
                 // Public pages
                 .requestMatchers("/", "/login", "/register", "/error").permitAll()
 
+                // API token login
+                .requestMatchers(HttpMethod.POST, "/api/auth/token").permitAll()
+
+                // Live room occupancy for hallway signage screens
+                .requestMatchers(HttpMethod.GET, "/api/occupancy", "/api/occupancy/stream").permitAll()
+
                 // Static resources and error pages
                 .requestMatchers("/static/**", "/error/**").permitAll()
 
@@ -56,11 +68,13 @@ public class SecurityConfig {
                 // Any other request requires authentication
                 .anyRequest().authenticated()
             )
+            // Bearer tokens on /api/** are checked before any session lookup
+            .addFilterBefore(new ApiTokenAuthenticationFilter(apiTokenService), UsernamePasswordAuthenticationFilter.class)
             .formLogin(form -> form
                 .loginPage("/login")
                 .loginProcessingUrl("/login")
                 .defaultSuccessUrl("/dashboard", true)
-                .failureUrl("/login?error=true")
+                .failureHandler(new LoginFailureHandler())
                 .usernameParameter("email")
                 .passwordParameter("password")
                 .permitAll()
@@ -73,10 +87,11 @@ public class SecurityConfig {
                 .permitAll()
             )
             .sessionManagement(session -> session
+                .invalidSessionUrl("/login?expired=true")
                 .maximumSessions(1)
                 .maxSessionsPreventsLogin(false)
-                .sessionRegistry(sessionRegistry())
-                .invalidSessionUrl("/login?expired=true")
+                .sessionRegistry(sessionRegistry)
+                .expiredUrl("/login?expired=true")
             )
             .exceptionHandling(exceptions -> exceptions
                 .accessDeniedPage("/access-denied")
@@ -86,10 +101,12 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hashes at the configured cost when a user with an older hash signs in
+        authProvider.setUserDetailsPasswordService(userService);
         return authProvider;
     }
 
@@ -98,18 +115,12 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
+    /**
+     * Session registry backed by the shared JDBC session store, so maximumSessions(1) sees a user's
+     * sessions on every instance, not just the one handling the login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    @Bean
-    public org.springframework.security.core.session.SessionRegistry sessionRegistry() {
-        return new org.springframework.security.core.session.SessionRegistryImpl();
-    }
-
-    @Bean
-    public HttpSessionEventPublisher httpSessionEventPublisher() {
-        return new HttpSessionEventPublisher();
+    public <S extends Session> SessionRegistry sessionRegistry(FindByIndexNameSessionRepository<S> sessionRepository) {
+        return new SpringSessionBackedSessionRegistry<>(sessionRepository);
     }
 }
\ No newline at end of file
@@ -1,12 +1,34 @@
 package com.schoolapp.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Our own assets; the rest of /static stays with Spring Boot's default handler
+    private static final String[] ASSET_DIRECTORIES = {"css", "js"};
+
+    private final Duration versionedMaxAge;
+    private final boolean cacheResolvedAssets;
+
+    public WebConfig(@Value("${app.static.versioned-max-age:365d}") Duration versionedMaxAge,
+                     @Value("${spring.web.resources.chain.cache:true}") boolean cacheResolvedAssets) {
+        this.versionedMaxAge = versionedMaxAge;
+        this.cacheResolvedAssets = cacheResolvedAssets;
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/login").setViewName("auth/login");
@@ -14,4 +36,43 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/dashboard").setViewName("dashboard");
         registry.addViewController("/access-denied").setViewName("error/access-denied");
     }
-}
\ No newline at end of file
+
+    /**
+     * Assets are linked as {@code /css/custom-<md5 of content>.css}. Such a URL never changes
+     * content, so it is cached for good; the plain URL still works but is revalidated on every use.
+     * Either way a gzip or brotli copy made at build time is sent to clients that accept it.
+     * A handler's Cache-Control only goes on found resources, so an unknown hash (e.g. a page from
+     * a newer instance during a rollout) is a 404 that is not cached.
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : ASSET_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/{file:.+-[0-9a-f]+\\.\\w+}")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.maxAge(versionedMaxAge).cachePublic().immutable())
+                    .resourceChain(cacheResolvedAssets)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(versionResolver());
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.noCache())
+                    .resourceChain(cacheResolvedAssets)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(versionResolver());
+        }
+    }
+
+    /**
+     * Rewrites {@code @{/css/custom.css}} in templates to the versioned URL.
+     */
+    @Bean
+    public FilterRegistrationBean<ResourceUrlEncodingFilter> resourceUrlEncodingFilter() {
+        FilterRegistrationBean<ResourceUrlEncodingFilter> registration = new FilterRegistrationBean<>(new ResourceUrlEncodingFilter());
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    private static VersionResourceResolver versionResolver() {
+        return new VersionResourceResolver().addContentVersionStrategy("/**");
+    }
+}
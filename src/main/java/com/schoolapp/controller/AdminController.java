@@ -5,20 +5,42 @@ import com.schoolapp.model.Class;
 import com.schoolapp.model.Room;
 import com.schoolapp.model.AttendanceRecord;
 import com.schoolapp.model.RoomBooking;
+import com.schoolapp.dto.BulkDeactivationResult;
+import com.schoolapp.dto.DashboardStats;
+import com.schoolapp.dto.RoomAssignmentPlan;
+import com.schoolapp.dto.RoomWeekUtilization;
+import com.schoolapp.dto.TermGenerationResult;
+import com.schoolapp.dto.UserPage;
 import com.schoolapp.service.AuthService;
+import com.schoolapp.service.BulkUserDeactivationService;
+import com.schoolapp.service.DashboardStatsService;
+import com.schoolapp.service.LiveAttendanceBoardService;
+import com.schoolapp.service.LiveOccupancyService;
+import com.schoolapp.service.ReferenceDataCache;
+import com.schoolapp.service.RoomAssignmentOptimizer;
+import com.schoolapp.service.RoomUtilizationService;
+import com.schoolapp.service.TermBookingGenerator;
+import com.schoolapp.service.UserDirectoryService;
 import com.schoolapp.service.UserService;
-import com.schoolapp.repository.UserRepository;
 import com.schoolapp.repository.ClassRepository;
 import com.schoolapp.repository.RoomRepository;
 import com.schoolapp.repository.AttendanceRecordRepository;
 import com.schoolapp.repository.RoomBookingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -31,47 +53,40 @@ public class AdminController {
 
     private final AuthService authService;
     private final UserService userService;
-    private final UserRepository userRepository;
     private final ClassRepository classRepository;
     private final RoomRepository roomRepository;
     private final AttendanceRecordRepository attendanceRepository;
     private final RoomBookingRepository roomBookingRepository;
+    private final RoomUtilizationService roomUtilizationService;
+    private final LiveOccupancyService liveOccupancyService;
+    private final LiveAttendanceBoardService liveAttendanceBoardService;
+    private final TermBookingGenerator termBookingGenerator;
+    private final RoomAssignmentOptimizer roomAssignmentOptimizer;
+    private final UserDirectoryService userDirectoryService;
+    private final BulkUserDeactivationService bulkUserDeactivationService;
+    private final DashboardStatsService dashboardStatsService;
+    private final ReferenceDataCache referenceDataCache;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
         try {
             User currentUser = authService.getCurrentUser();
 
-            // System statistics
-            long totalUsers = userRepository.count();
-            long totalStudents = userRepository.countActiveUsersByRole(User.UserRole.STUDENT);
-            long totalTeachers = userRepository.countActiveUsersByRole(User.UserRole.TEACHER);
-            long totalAdmins = userRepository.countActiveUsersByRole(User.UserRole.ADMINISTRATOR);
-            long totalClasses = classRepository.count();
-            long totalRooms = roomRepository.count();
-            long totalAttendanceRecords = attendanceRepository.count();
-            long totalBookings = roomBookingRepository.count();
-
-            // Today's statistics
-            List<AttendanceRecord> todayAttendance = attendanceRepository.findByDate(LocalDate.now());
-            long presentToday = todayAttendance.stream()
-                    .filter(record -> record.getStatus() == AttendanceRecord.AttendanceStatus.PRESENT)
-                    .count();
-
-            List<RoomBooking> currentBookings = roomBookingRepository.findCurrentBookings();
+            DashboardStats stats = dashboardStatsService.getSnapshot();
 
             model.addAttribute("user", currentUser);
-            model.addAttribute("totalUsers", totalUsers);
-            model.addAttribute("totalStudents", totalStudents);
-            model.addAttribute("totalTeachers", totalTeachers);
-            model.addAttribute("totalAdmins", totalAdmins);
-            model.addAttribute("totalClasses", totalClasses);
-            model.addAttribute("totalRooms", totalRooms);
-            model.addAttribute("totalAttendanceRecords", totalAttendanceRecords);
-            model.addAttribute("totalBookings", totalBookings);
-            model.addAttribute("presentToday", presentToday);
-            model.addAttribute("totalPresentToday", todayAttendance.size());
-            model.addAttribute("currentBookings", currentBookings.size());
+            model.addAttribute("stats", stats);
+            model.addAttribute("totalUsers", stats.getTotalUsers());
+            model.addAttribute("totalStudents", stats.getActiveStudents());
+            model.addAttribute("totalTeachers", stats.getActiveTeachers());
+            model.addAttribute("totalAdmins", stats.getActiveAdmins());
+            model.addAttribute("totalClasses", stats.getTotalClasses());
+            model.addAttribute("totalRooms", stats.getTotalRooms());
+            model.addAttribute("totalAttendanceRecords", stats.getTotalAttendanceRecords());
+            model.addAttribute("totalBookings", stats.getTotalBookings());
+            model.addAttribute("presentToday", stats.getPresentToday());
+            model.addAttribute("totalPresentToday", stats.getAttendanceToday());
+            model.addAttribute("currentBookings", liveOccupancyService.getOccupiedRoomCount());
 
             return "admin/dashboard";
         } catch (Exception e) {
@@ -81,22 +96,44 @@ public class AdminController {
     }
 
     @GetMapping("/users")
-    public String users(@RequestParam(value = "role", required = false) String role, Model model) {
+    public String users(@RequestParam(value = "role", required = false) String role,
+                        @RequestParam(value = "status", defaultValue = "active") String status,
+                        @RequestParam(value = "q", required = false) String search,
+                        @RequestParam(value = "after", required = false) String after,
+                        @RequestParam(value = "before", required = false) String before,
+                        @RequestParam(value = "size", defaultValue = "50") int size,
+                        Model model) {
         try {
             User currentUser = authService.getCurrentUser();
-            List<User> users;
 
+            User.UserRole userRole = null;
             if (role != null && !role.isEmpty()) {
-                User.UserRole userRole = User.UserRole.valueOf(role.toUpperCase());
-                users = userService.getUsersByRole(userRole);
+                userRole = User.UserRole.valueOf(role.toUpperCase());
                 model.addAttribute("selectedRole", userRole);
-            } else {
-                users = userService.getAllActiveUsers();
+            }
+            Boolean active = switch (status) {
+                case "inactive" -> false;
+                case "all" -> null;
+                default -> true;
+            };
+
+            UserPage page = userDirectoryService.findPage(userRole, active, search, after, before, size);
+
+            Map<User.UserRole, Long> roleCounts = new EnumMap<>(User.UserRole.class);
+            for (User.UserRole r : User.UserRole.values()) {
+                roleCounts.put(r, userDirectoryService.count(r, active));
             }
 
             model.addAttribute("user", currentUser);
-            model.addAttribute("users", users);
+            model.addAttribute("page", page);
+            model.addAttribute("users", page.getUsers());
+            model.addAttribute("roleCounts", roleCounts);
+            model.addAttribute("totalUsers", userDirectoryService.count(null, active));
+            model.addAttribute("activeAdminCount", userDirectoryService.count(User.UserRole.ADMINISTRATOR, true));
             model.addAttribute("roles", User.UserRole.values());
+            model.addAttribute("status", status);
+            model.addAttribute("search", search);
+            model.addAttribute("pageSize", Math.max(1, Math.min(size, UserDirectoryService.MAX_PAGE_SIZE)));
 
             return "admin/users";
         } catch (Exception e) {
@@ -105,6 +142,40 @@ public class AdminController {
         }
     }
 
+    @PostMapping("/users/bulk-deactivate")
+    public String bulkDeactivateUsers(@RequestParam("mode") String mode,
+                                      @RequestParam(value = "gradeLevel", required = false) Integer gradeLevel,
+                                      @RequestParam(value = "identifiers", required = false) String identifiers,
+                                      @RequestParam(value = "file", required = false) MultipartFile file,
+                                      RedirectAttributes redirectAttributes) {
+        try {
+            BulkDeactivationResult result;
+            if ("grade".equals(mode)) {
+                if (gradeLevel == null) {
+                    throw new RuntimeException("Choose a grade level");
+                }
+                result = bulkUserDeactivationService.deactivateByGradeLevel(gradeLevel);
+            } else if ("list".equals(mode)) {
+                if (identifiers == null || identifiers.isBlank()) {
+                    throw new RuntimeException("Enter at least one email, student ID or staff ID");
+                }
+                result = bulkUserDeactivationService.deactivateByCsv(new StringReader(identifiers));
+            } else {
+                if (file == null || file.isEmpty()) {
+                    throw new RuntimeException("Choose a CSV file");
+                }
+                try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+                    result = bulkUserDeactivationService.deactivateByCsv(reader);
+                }
+            }
+            redirectAttributes.addFlashAttribute("message", "Bulk deactivation finished: " + result.getSummary());
+        } catch (Exception e) {
+            log.error("Error bulk deactivating users", e);
+            redirectAttributes.addFlashAttribute("error", "Failed to deactivate users: " + e.getMessage());
+        }
+        return "redirect:/admin/users";
+    }
+
     @PostMapping("/users/{userId}/deactivate")
     public String deactivateUser(@PathVariable UUID userId, RedirectAttributes redirectAttributes) {
         try {
@@ -162,7 +233,7 @@ public class AdminController {
     }
 
     @GetMapping("/attendance")
-    public String attendanceReports(@RequestParam(value = "date", required = false) LocalDate date, Model model) {
+    public String attendanceReports(@RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, Model model) {
         try {
             User currentUser = authService.getCurrentUser();
 
@@ -188,6 +259,7 @@ public class AdminController {
             model.addAttribute("absentCount", absentCount);
             model.addAttribute("totalCount", records.size());
             model.addAttribute("attendanceRate", attendanceRate);
+            model.addAttribute("liveBoard", date.equals(LocalDate.now()));
 
             return "admin/attendance";
         } catch (Exception e) {
@@ -196,8 +268,19 @@ public class AdminController {
         }
     }
 
+    /**
+     * Today's per-class attendance counts, pushed as teachers mark attendance.
+     */
+    @GetMapping(path = "/attendance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter attendanceStream() {
+        return liveAttendanceBoardService.subscribe();
+    }
+
     @GetMapping("/bookings")
-    public String bookingReports(@RequestParam(value = "date", required = false) LocalDate date, Model model) {
+    public String bookingReports(@RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                 @RequestParam(value = "roomId", required = false) UUID roomId,
+                                 Model model) {
         try {
             User currentUser = authService.getCurrentUser();
 
@@ -225,6 +308,19 @@ public class AdminController {
             model.addAttribute("cancelledCount", cancelledCount);
             model.addAttribute("totalCount", bookings.size());
 
+            // Weekly utilization heatmap, aggregated in the database
+            List<Room> rooms = referenceDataCache.getActiveRooms();
+            List<RoomWeekUtilization> utilization = roomUtilizationService.getWeeklyUtilization(rooms, date);
+            RoomWeekUtilization selectedRoomUtilization = utilization.stream()
+                    .filter(u -> u.getRoomId().equals(roomId))
+                    .findFirst()
+                    .orElse(null);
+
+            model.addAttribute("weekStart", RoomUtilizationService.weekStartOf(date));
+            model.addAttribute("utilization", utilization);
+            model.addAttribute("peakConcurrency", roomUtilizationService.getDailyPeakConcurrency(date));
+            model.addAttribute("selectedRoomUtilization", selectedRoomUtilization);
+
             return "admin/bookings";
         } catch (Exception e) {
             log.error("Error loading booking reports", e);
@@ -232,6 +328,54 @@ public class AdminController {
         }
     }
 
+    @PostMapping("/bookings/generate-term")
+    public String generateTermBookings(@RequestParam("termStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate termStart,
+                                       @RequestParam("termEnd") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate termEnd,
+                                       RedirectAttributes redirectAttributes) {
+        try {
+            TermGenerationResult result = termBookingGenerator.generate(termStart, termEnd);
+            redirectAttributes.addFlashAttribute("message", "Term bookings generated: " + result.getSummary());
+            redirectAttributes.addFlashAttribute("termResult", result);
+        } catch (Exception e) {
+            log.error("Error generating term bookings", e);
+            redirectAttributes.addFlashAttribute("error", "Failed to generate term bookings: " + e.getMessage());
+        }
+        return "redirect:/admin/bookings";
+    }
+
+    @GetMapping("/timetable/rooms")
+    public String roomAssignment(Model model) {
+        try {
+            User currentUser = authService.getCurrentUser();
+            RoomAssignmentPlan plan = roomAssignmentOptimizer.preview();
+
+            model.addAttribute("user", currentUser);
+            model.addAttribute("plan", plan);
+
+            return "admin/room-assignment";
+        } catch (Exception e) {
+            log.error("Error computing room assignment", e);
+            return "redirect:/admin/dashboard";
+        }
+    }
+
+    @PostMapping("/timetable/rooms/{planId}/apply")
+    public String applyRoomAssignment(@PathVariable UUID planId,
+                                      @RequestParam("termStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate termStart,
+                                      @RequestParam("termEnd") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate termEnd,
+                                      RedirectAttributes redirectAttributes) {
+        try {
+            TermGenerationResult result = roomAssignmentOptimizer.apply(planId, termStart, termEnd);
+            redirectAttributes.addFlashAttribute("message", "Room assignment applied. " + result.getSummary());
+            redirectAttributes.addFlashAttribute("termResult", result);
+            return "redirect:/admin/bookings";
+        } catch (Exception e) {
+            log.error("Error applying room assignment", e);
+            redirectAttributes.addFlashAttribute("error", "Failed to apply room assignment: " + e.getMessage());
+            return "redirect:/admin/timetable/rooms";
+        }
+    }
+
     @GetMapping("/system-info")
     public String systemInfo(Model model) {
         try {
@@ -244,23 +388,19 @@ public class AdminController {
             long usedMemory = totalMemory - freeMemory;
             long maxMemory = runtime.maxMemory();
 
-            // Database statistics
-            long totalUsers = userRepository.count();
-            long totalClasses = classRepository.count();
-            long totalRooms = roomRepository.count();
-            long totalAttendance = attendanceRepository.count();
-            long totalBookings = roomBookingRepository.count();
+            // Database statistics, exact rather than the dashboard's estimates
+            DashboardStats stats = dashboardStatsService.getExactStats();
 
             model.addAttribute("user", currentUser);
             model.addAttribute("totalMemory", totalMemory);
             model.addAttribute("freeMemory", freeMemory);
             model.addAttribute("usedMemory", usedMemory);
             model.addAttribute("maxMemory", maxMemory);
-            model.addAttribute("totalUsers", totalUsers);
-            model.addAttribute("totalClasses", totalClasses);
-            model.addAttribute("totalRooms", totalRooms);
-            model.addAttribute("totalAttendance", totalAttendance);
-            model.addAttribute("totalBookings", totalBookings);
+            model.addAttribute("totalUsers", stats.getTotalUsers());
+            model.addAttribute("totalClasses", stats.getTotalClasses());
+            model.addAttribute("totalRooms", stats.getTotalRooms());
+            model.addAttribute("totalAttendance", stats.getTotalAttendanceRecords());
+            model.addAttribute("totalBookings", stats.getTotalBookings());
 
             return "admin/system-info";
         } catch (Exception e) {
@@ -0,0 +1,69 @@
+package com.schoolapp.controller;
+
+import com.schoolapp.config.LoginCapacityExceededException;
+import com.schoolapp.dto.ApiTokenClaims;
+import com.schoolapp.dto.ApiTokenResponse;
+import com.schoolapp.dto.LoginRequest;
+import com.schoolapp.model.User;
+import com.schoolapp.service.ApiTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Token login for API clients (kiosks, mobile). The returned token goes in
+ * {@code Authorization: Bearer <token>} on /api/** requests.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@Slf4j
+public class ApiTokenController {
+
+    private final AuthenticationManager authenticationManager;
+    private final ApiTokenService apiTokenService;
+
+    @PostMapping("/token")
+    public ResponseEntity<ApiTokenResponse> issue(@Valid @RequestBody LoginRequest loginRequest) {
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+        } catch (LoginCapacityExceededException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        } catch (AuthenticationException e) {
+            log.debug("API token login failed for {}: {}", loginRequest.getEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(apiTokenService.issue(user));
+    }
+
+    /**
+     * Revokes the bearer token this request was made with.
+     */
+    @PostMapping("/token/revoke")
+    public ResponseEntity<Void> revoke(HttpServletRequest request) {
+        Object claims = request.getAttribute(ApiTokenClaims.class.getName());
+        if (!(claims instanceof ApiTokenClaims apiTokenClaims)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        apiTokenService.revoke(apiTokenClaims);
+        return ResponseEntity.noContent().build();
+    }
+}
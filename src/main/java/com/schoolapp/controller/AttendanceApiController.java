@@ -0,0 +1,68 @@
+package com.schoolapp.controller;
+
+import com.schoolapp.dto.AttendanceEntry;
+import com.schoolapp.model.User;
+import com.schoolapp.service.AttendanceService;
+import com.schoolapp.service.AttendanceVersionService;
+import com.schoolapp.service.AuthService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JSON equivalents of the student and teacher attendance pages, with the same conditional GET.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class AttendanceApiController {
+
+    private final AttendanceService attendanceService;
+    private final AttendanceVersionService attendanceVersionService;
+    private final AuthService authService;
+
+    @GetMapping("/student/attendance")
+    public ResponseEntity<List<AttendanceEntry>> myAttendance(@RequestParam(value = "month", required = false) Integer month,
+                                                              @RequestParam(value = "year", required = false) Integer year,
+                                                              ServletWebRequest webRequest) {
+        User currentUser = authService.getCurrentUser();
+        LocalDate today = LocalDate.now();
+        LocalDate startDate = LocalDate.of(year != null ? year : today.getYear(),
+                month != null ? month : today.getMonthValue(), 1);
+
+        long stamp = attendanceVersionService.studentStamp(currentUser.getId());
+        String etag = ConditionalGet.etag(webRequest, stamp, false, currentUser.getId(), startDate);
+        if (ConditionalGet.notModified(webRequest, etag, stamp)) {
+            return null;
+        }
+        return ResponseEntity.ok(attendanceService.getMyAttendanceEntries(
+                startDate, startDate.withDayOfMonth(startDate.lengthOfMonth())));
+    }
+
+    @GetMapping("/teacher/classes/{classId}/attendance")
+    public ResponseEntity<List<AttendanceEntry>> classAttendance(@PathVariable UUID classId,
+                                                                 @RequestParam(value = "date", required = false)
+                                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                                 ServletWebRequest webRequest) {
+        if (!attendanceService.isOwnClass(classId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (date == null) {
+            date = LocalDate.now();
+        }
+
+        long stamp = attendanceVersionService.classDateStamp(classId, date);
+        String etag = ConditionalGet.etag(webRequest, stamp, false, classId, date);
+        if (ConditionalGet.notModified(webRequest, etag, stamp)) {
+            return null;
+        }
+        return ResponseEntity.ok(attendanceService.getClassAttendanceEntries(classId, date));
+    }
+}
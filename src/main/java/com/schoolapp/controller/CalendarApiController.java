@@ -0,0 +1,89 @@
+package com.schoolapp.controller;
+
+import com.schoolapp.dto.WeekCalendarSnapshot;
+import com.schoolapp.model.User;
+import com.schoolapp.service.AuthService;
+import com.schoolapp.service.RoomCalendarService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/calendar")
+@RequiredArgsConstructor
+public class CalendarApiController {
+
+    private final RoomCalendarService calendarService;
+    private final AuthService authService;
+
+    @GetMapping("/rooms/{roomId}")
+    public ResponseEntity<WeekCalendarSnapshot> roomWeek(@PathVariable UUID roomId,
+                                                         @RequestParam(value = "week", required = false) String week,
+                                                         WebRequest webRequest) {
+        // Entries carry booking titles and booker names, which students do not see elsewhere either
+        if (authService.getCurrentUser().getRole() == User.UserRole.STUDENT) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        LocalDate weekStart;
+        try {
+            weekStart = RoomCalendarService.parseIsoWeek(week);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String etag = calendarService.currentETag(RoomCalendarService.ROOM, roomId, weekStart);
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ok(calendarService.getRoomWeek(roomId, weekStart));
+    }
+
+    @GetMapping("/teachers/me")
+    public ResponseEntity<WeekCalendarSnapshot> myWeek(@RequestParam(value = "week", required = false) String week,
+                                                       WebRequest webRequest) {
+        return teacherWeek(authService.getCurrentUser().getId(), week, webRequest);
+    }
+
+    @GetMapping("/teachers/{teacherId}")
+    public ResponseEntity<WeekCalendarSnapshot> teacherWeek(@PathVariable UUID teacherId,
+                                                            @RequestParam(value = "week", required = false) String week,
+                                                            WebRequest webRequest) {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser.getRole() == User.UserRole.STUDENT) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        LocalDate weekStart;
+        try {
+            weekStart = RoomCalendarService.parseIsoWeek(week);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String etag = calendarService.currentETag(RoomCalendarService.TEACHER, teacherId, weekStart);
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ok(calendarService.getTeacherWeek(teacherId, weekStart));
+    }
+
+    private static ResponseEntity<WeekCalendarSnapshot> ok(WeekCalendarSnapshot snapshot) {
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(snapshot);
+    }
+
+    private static ResponseEntity<WeekCalendarSnapshot> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+}
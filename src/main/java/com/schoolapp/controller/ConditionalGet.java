@@ -0,0 +1,55 @@
+package com.schoolapp.controller;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Conditional GET for pages and JSON backed by a version stamp (see
+ * {@link com.schoolapp.service.AttendanceVersionService}). Responses may be stored by the browser
+ * but must be revalidated on every use.
+ */
+final class ConditionalGet {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * ETag for a stamp. {@code variant} covers what else the response depends on, such as resolved
+     * default parameters; rendered pages also depend on the session because they embed its CSRF token.
+     */
+    static String etag(ServletWebRequest webRequest, long stamp, boolean perSession, Object... variant) {
+        StringBuilder key = new StringBuilder();
+        if (perSession) {
+            HttpSession session = webRequest.getRequest().getSession(false);
+            key.append(session != null ? session.getId() : "");
+        }
+        for (Object part : variant) {
+            key.append('|').append(part);
+        }
+        return "\"" + Long.toString(stamp, 36) + "-" + Integer.toHexString(key.toString().hashCode()) + "\"";
+    }
+
+    /**
+     * Sets the validators and answers 304 if the client's copy is current, in which case the
+     * handler returns {@code null}.
+     */
+    static boolean notModified(ServletWebRequest webRequest, String etag, long stamp) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return webRequest.checkNotModified(etag, stamp);
+    }
+
+    /**
+     * For a response that turned out not to be cacheable after all, such as a page with a warning.
+     */
+    static void noStore(ServletWebRequest webRequest) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.schoolapp.controller;
+
+import com.schoolapp.dto.OccupancyBoard;
+import com.schoolapp.service.LiveOccupancyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Read-only room occupancy feed for hallway signage screens. Served entirely from memory.
+ */
+@RestController
+@RequestMapping("/api/occupancy")
+@RequiredArgsConstructor
+public class OccupancyApiController {
+
+    private final LiveOccupancyService liveOccupancyService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> board(WebRequest webRequest) {
+        OccupancyBoard board = liveOccupancyService.getBoard();
+        String etag = "\"occupancy-" + board.getVersion() + "-" + board.getGeneratedAt().hashCode() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(board.getJson());
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return liveOccupancyService.subscribe();
+    }
+}
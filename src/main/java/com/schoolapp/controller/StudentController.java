@@ -1,10 +1,14 @@
 package com.schoolapp.controller;
 
+import com.schoolapp.dto.RoomSearchCriteria;
 import com.schoolapp.model.AttendanceRecord;
 import com.schoolapp.model.Class;
 import com.schoolapp.model.User;
 import com.schoolapp.service.AttendanceService;
+import com.schoolapp.service.AttendanceVersionService;
 import com.schoolapp.service.AuthService;
+import com.schoolapp.service.DashboardLoader;
+import com.schoolapp.service.RoomService;
 import com.schoolapp.repository.ClassRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,8 +16,10 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -28,41 +34,58 @@ public class StudentController {
     private final AttendanceService attendanceService;
     private final AuthService authService;
     private final ClassRepository classRepository;
+    private final RoomService roomService;
+    private final DashboardLoader dashboardLoader;
+    private final AttendanceVersionService attendanceVersionService;
 
     @GetMapping("/dashboard")
-    public String dashboard(Model model) {
+    public String dashboard(Model model, ServletWebRequest webRequest) {
         try {
             User currentUser = authService.getCurrentUser();
 
-            // Get student's enrolled classes
-            List<Class> enrolledClasses = classRepository.findClassesByStudent(currentUser.getId());
-
-            // Calculate attendance statistics for the current month
+            UUID studentId = currentUser.getId();
             LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
             LocalDate today = LocalDate.now();
 
-            Map<UUID, Double> attendancePercentages = new HashMap<>();
+            // An unchanged refresh is answered from the version stamp alone
+            long stamp = attendanceVersionService.studentStamp(studentId);
+            if (!hasFlashMessage(model)
+                    && ConditionalGet.notModified(webRequest, ConditionalGet.etag(webRequest, stamp, true, today), stamp)) {
+                return null;
+            }
+
+            // Independent reads, loaded in parallel
+            DashboardLoader.Batch batch = dashboardLoader.begin();
+            DashboardLoader.Section<List<Class>> classesSection = batch.load("classes",
+                    () -> classRepository.findClassesByStudentWithTeacher(studentId), List.of());
+            DashboardLoader.Section<Map<UUID, Map<AttendanceRecord.AttendanceStatus, Long>>> statsSection = batch.load("attendance",
+                    () -> attendanceService.getStudentAttendanceStatsByClass(studentId, startOfMonth, today), Map.of());
+            List<String> unavailable = batch.await();
+
+            List<Class> enrolledClasses = classesSection.get();
             Map<UUID, Map<AttendanceRecord.AttendanceStatus, Long>> attendanceStats = new HashMap<>();
+            Map<UUID, Double> attendancePercentages = new HashMap<>();
+            long presentTotal = 0;
+            long recordTotal = 0;
 
+            // This month's attendance per class
             for (Class classEntity : enrolledClasses) {
-                try {
-                    double percentage = attendanceService.getStudentAttendancePercentage(currentUser.getId(), startOfMonth, today);
-                    attendancePercentages.put(classEntity.getId(), percentage);
-
-                    Map<AttendanceRecord.AttendanceStatus, Long> stats = attendanceService.getStudentAttendanceStats(currentUser.getId(), startOfMonth, today);
-                    attendanceStats.put(classEntity.getId(), stats);
-                } catch (Exception e) {
-                    // If no attendance records exist for this period
-                    attendancePercentages.put(classEntity.getId(), 0.0);
-                    attendanceStats.put(classEntity.getId(), new HashMap<>());
-                }
+                Map<AttendanceRecord.AttendanceStatus, Long> stats =
+                        statsSection.get().getOrDefault(classEntity.getId(), Map.of());
+                long present = stats.getOrDefault(AttendanceRecord.AttendanceStatus.PRESENT, 0L);
+                long total = stats.values().stream().mapToLong(Long::longValue).sum();
+                attendanceStats.put(classEntity.getId(), stats);
+                attendancePercentages.put(classEntity.getId(), total > 0 ? (double) present / total * 100 : 0.0);
+                presentTotal += present;
+                recordTotal += total;
             }
 
-            // Calculate overall attendance percentage
-            double overallPercentage = attendancePercentages.values().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
+            double overallPercentage = recordTotal > 0 ? (double) presentTotal / recordTotal * 100 : 0.0;
+
+            if (!unavailable.isEmpty()) {
+                ConditionalGet.noStore(webRequest);
+                model.addAttribute("warning", "Some information is temporarily unavailable: " + String.join(", ", unavailable));
+            }
 
             model.addAttribute("user", currentUser);
             model.addAttribute("enrolledClasses", enrolledClasses);
@@ -82,10 +105,18 @@ public class StudentController {
     public String attendancePage(@RequestParam(value = "classId", required = false) UUID classId,
                                @RequestParam(value = "month", required = false) Integer month,
                                @RequestParam(value = "year", required = false) Integer year,
-                               Model model) {
+                               Model model, ServletWebRequest webRequest) {
         try {
             User currentUser = authService.getCurrentUser();
 
+            LocalDate now = LocalDate.now();
+            long stamp = attendanceVersionService.studentStamp(currentUser.getId());
+            String etag = ConditionalGet.etag(webRequest, stamp, true, classId,
+                    month != null ? month : now.getMonthValue(), year != null ? year : now.getYear());
+            if (!hasFlashMessage(model) && ConditionalGet.notModified(webRequest, etag, stamp)) {
+                return null;
+            }
+
             // Get student's enrolled classes
             List<Class> enrolledClasses = classRepository.findClassesByStudent(currentUser.getId());
 
@@ -105,9 +136,10 @@ public class StudentController {
             Map<LocalDate, AttendanceRecord> attendanceByDate = new HashMap<>();
 
             if (classId != null) {
+                UUID selectedClassId = classId;
                 attendanceRecords = attendanceService.getStudentAttendanceHistory(currentUser.getId(), startDate, endDate);
                 attendanceByDate = attendanceRecords.stream()
-                        .filter(record -> record.getClass_().getId().equals(classId))
+                        .filter(record -> record.getClass_().getId().equals(selectedClassId))
                         .collect(Collectors.toMap(AttendanceRecord::getDate, record -> record));
             }
 
@@ -206,13 +238,20 @@ public class StudentController {
     }
 
     @GetMapping("/rooms")
-    public String rooms(Model model) {
+    public String rooms(@ModelAttribute("search") RoomSearchCriteria search, Model model) {
         try {
             User currentUser = authService.getCurrentUser();
             List<Class> enrolledClasses = classRepository.findClassesByStudent(currentUser.getId());
 
             model.addAttribute("user", currentUser);
             model.addAttribute("enrolledClasses", enrolledClasses);
+            model.addAttribute("roomTypes", roomService.getRoomTypes());
+            try {
+                model.addAttribute("rooms", roomService.searchRooms(search));
+            } catch (RuntimeException e) {
+                model.addAttribute("rooms", List.of());
+                model.addAttribute("searchError", e.getMessage());
+            }
 
             return "student/rooms";
         } catch (Exception e) {
@@ -220,4 +259,8 @@ public class StudentController {
             return "redirect:/student/dashboard";
         }
     }
-}
\ No newline at end of file
+
+    private static boolean hasFlashMessage(Model model) {
+        return model.containsAttribute("message") || model.containsAttribute("error");
+    }
+}
@@ -1,24 +1,33 @@
 package com.schoolapp.controller;
 
 import com.schoolapp.dto.AttendanceUpdateRequest;
+import com.schoolapp.dto.RosterRow;
+import com.schoolapp.dto.RosterSummary;
 import com.schoolapp.dto.RoomBookingRequest;
+import com.schoolapp.dto.RoomSearchCriteria;
 import com.schoolapp.model.AttendanceRecord;
 import com.schoolapp.model.Class;
 import com.schoolapp.model.Room;
 import com.schoolapp.model.RoomBooking;
 import com.schoolapp.model.User;
 import com.schoolapp.service.AttendanceService;
+import com.schoolapp.service.AttendanceVersionService;
 import com.schoolapp.service.AuthService;
+import com.schoolapp.service.DashboardLoader;
+import com.schoolapp.service.ReferenceDataCache;
 import com.schoolapp.service.RoomBookingService;
+import com.schoolapp.service.RoomService;
 import com.schoolapp.repository.ClassRepository;
-import com.schoolapp.repository.RoomRepository;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
@@ -35,16 +44,27 @@ public class TeacherController {
     private final AuthService authService;
     private final RoomBookingService roomBookingService;
     private final ClassRepository classRepository;
-    private final RoomRepository roomRepository;
+    private final RoomService roomService;
+    private final DashboardLoader dashboardLoader;
+    private final ReferenceDataCache referenceDataCache;
+    private final AttendanceVersionService attendanceVersionService;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
         try {
             User currentUser = authService.getCurrentUser();
-            List<Class> teacherClasses = classRepository.findByTeacherId(currentUser.getId());
-
-            // Get today's attendance summary
-            List<AttendanceRecord> todayAttendance = attendanceService.getTodayAttendanceForTeacher(currentUser.getId());
+            UUID teacherId = currentUser.getId();
+
+            // Independent reads, loaded in parallel
+            DashboardLoader.Batch batch = dashboardLoader.begin();
+            DashboardLoader.Section<List<Class>> classesSection = batch.load("classes",
+                    () -> referenceDataCache.getTeacherClasses(teacherId), List.of());
+            DashboardLoader.Section<List<AttendanceRecord>> todaySection = batch.load("today's attendance",
+                    () -> attendanceService.getTodayAttendanceForTeacher(teacherId), List.of());
+            List<String> unavailable = batch.await();
+
+            List<Class> teacherClasses = classesSection.get();
+            List<AttendanceRecord> todayAttendance = todaySection.get();
             Map<UUID, Long> todayAttendanceByClass = new HashMap<>();
             Map<UUID, Long> presentCountByClass = new HashMap<>();
 
@@ -56,6 +76,9 @@ public class TeacherController {
                 }
             }
 
+            if (!unavailable.isEmpty()) {
+                model.addAttribute("warning", "Some information is temporarily unavailable: " + String.join(", ", unavailable));
+            }
             model.addAttribute("user", currentUser);
             model.addAttribute("classes", teacherClasses);
             model.addAttribute("todayAttendance", todayAttendanceByClass);
@@ -73,10 +96,10 @@ public class TeacherController {
     @GetMapping("/attendance")
     public String attendancePage(@RequestParam(value = "classId", required = false) UUID classId,
                                @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-                               Model model) {
+                               Model model, ServletWebRequest webRequest) {
         try {
             User currentUser = authService.getCurrentUser();
-            List<Class> teacherClasses = classRepository.findByTeacherId(currentUser.getId());
+            List<Class> teacherClasses = referenceDataCache.getTeacherClasses(currentUser.getId());
 
             if (classId == null && !teacherClasses.isEmpty()) {
                 classId = teacherClasses.get(0).getId();
@@ -86,33 +109,32 @@ public class TeacherController {
                 date = LocalDate.now();
             }
 
-            List<AttendanceRecord> attendanceRecords = new ArrayList<>();
-            Map<UUID, AttendanceRecord> attendanceByStudent = new HashMap<>();
-
-            if (classId != null) {
-                Class selectedClass = classRepository.findById(classId)
-                        .orElseThrow(() -> new RuntimeException("Class not found"));
-
-                if (!selectedClass.getTeacher().getId().equals(currentUser.getId())) {
-                    throw new RuntimeException("You can only view attendance for your own classes");
+            // An unchanged refresh of one of the teacher's own sheets is answered from the version stamp
+            if (classId != null && !model.containsAttribute("message") && !model.containsAttribute("error")
+                    && attendanceService.isOwnClass(classId)) {
+                long stamp = attendanceVersionService.classDateStamp(classId, date);
+                if (ConditionalGet.notModified(webRequest, ConditionalGet.etag(webRequest, stamp, true, classId, date), stamp)) {
+                    return null;
                 }
+            }
 
-                attendanceRecords = attendanceService.getAttendanceByClassAndDate(classId, date);
-                attendanceByStudent = attendanceRecords.stream()
-                        .collect(HashMap::new, (m, r) -> m.put(r.getStudent().getId(), r), HashMap::putAll);
+            if (classId != null) {
+                UUID selectedClassId = classId;
+                Class selectedClass = teacherClasses.stream()
+                        .filter(teacherClass -> teacherClass.getId().equals(selectedClassId))
+                        .findFirst()
+                        .orElseThrow(() -> new RuntimeException("You can only view attendance for your own classes"));
 
+                List<RosterRow> roster = attendanceService.getRoster(classId, date);
                 model.addAttribute("selectedClass", selectedClass);
-                model.addAttribute("enrolledStudents", selectedClass.getEnrollments().stream()
-                        .filter(enrollment -> enrollment.getIsActive())
-                        .toList());
+                model.addAttribute("roster", roster);
+                model.addAttribute("summary", RosterSummary.of(roster));
             }
 
             model.addAttribute("user", currentUser);
             model.addAttribute("classes", teacherClasses);
             model.addAttribute("selectedClassId", classId);
             model.addAttribute("selectedDate", date);
-            model.addAttribute("attendanceRecords", attendanceRecords);
-            model.addAttribute("attendanceByStudent", attendanceByStudent);
 
             return "teacher/attendance";
         } catch (Exception e) {
@@ -156,17 +178,52 @@ public class TeacherController {
         }
     }
 
+    /**
+     * One student's status or notes changed on the roster; answered with the re-rendered row and
+     * summary bar only.
+     */
+    @PostMapping("/attendance/mark-student")
+    public String markStudent(@RequestParam UUID classId,
+                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                              @RequestParam UUID studentId,
+                              @RequestParam AttendanceRecord.AttendanceStatus status,
+                              @RequestParam(value = "notes", required = false) String notes,
+                              Model model, HttpServletResponse response) {
+        try {
+            RosterRow row = attendanceService.markStudentAttendance(classId, date, studentId, status,
+                    notes == null || notes.isBlank() ? null : notes);
+            model.addAttribute("row", row);
+            model.addAttribute("summary", attendanceService.getRosterSummary(classId, date));
+            return "teacher/attendance :: rowUpdate";
+
+        } catch (Exception e) {
+            log.error("Error marking attendance", e);
+            return errorFragment(model, response, "Failed to mark attendance: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/attendance/mark-all-present")
     public String markAllPresent(@RequestParam UUID classId,
                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                @RequestHeader(value = "X-Requested-With", required = false) String requestedWith,
+                                Model model, HttpServletResponse response,
                                 RedirectAttributes redirectAttributes) {
         try {
             List<AttendanceRecord> records = attendanceService.markAllPresent(classId, date);
+            if (isAjax(requestedWith)) {
+                List<RosterRow> roster = attendanceService.getRoster(classId, date);
+                model.addAttribute("roster", roster);
+                model.addAttribute("summary", RosterSummary.of(roster));
+                return "teacher/attendance :: rosterUpdate";
+            }
             redirectAttributes.addFlashAttribute("message", "All " + records.size() + " students marked as present");
             return "redirect:/teacher/attendance?classId=" + classId + "&date=" + date;
 
         } catch (Exception e) {
             log.error("Error marking all present", e);
+            if (isAjax(requestedWith)) {
+                return errorFragment(model, response, "Failed to mark all present: " + e.getMessage());
+            }
             redirectAttributes.addFlashAttribute("error", "Failed to mark all present: " + e.getMessage());
             return "redirect:/teacher/attendance?classId=" + classId + "&date=" + date;
         }
@@ -175,19 +232,39 @@ public class TeacherController {
     @PostMapping("/attendance/update")
     public String updateAttendance(@RequestParam UUID recordId,
                                   @Valid @ModelAttribute AttendanceUpdateRequest updateRequest,
+                                  @RequestHeader(value = "X-Requested-With", required = false) String requestedWith,
+                                  Model model, HttpServletResponse response,
                                   RedirectAttributes redirectAttributes) {
         try {
             AttendanceRecord record = attendanceService.updateAttendance(recordId, updateRequest);
+            if (isAjax(requestedWith)) {
+                model.addAttribute("row", RosterRow.of(record));
+                model.addAttribute("summary", attendanceService.getRosterSummary(record.getClass_().getId(), record.getDate()));
+                return "teacher/attendance :: rowUpdate";
+            }
             redirectAttributes.addFlashAttribute("message", "Attendance updated successfully");
             return "redirect:/teacher/attendance?classId=" + record.getClass_().getId() + "&date=" + record.getDate();
 
         } catch (Exception e) {
             log.error("Error updating attendance", e);
+            if (isAjax(requestedWith)) {
+                return errorFragment(model, response, "Failed to update attendance: " + e.getMessage());
+            }
             redirectAttributes.addFlashAttribute("error", "Failed to update attendance: " + e.getMessage());
             return "redirect:/teacher/attendance";
         }
     }
 
+    private static boolean isAjax(String requestedWith) {
+        return "XMLHttpRequest".equals(requestedWith);
+    }
+
+    private static String errorFragment(Model model, HttpServletResponse response, String error) {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        model.addAttribute("error", error);
+        return "teacher/attendance :: alert";
+    }
+
     @GetMapping("/attendance/history")
     public String attendanceHistory(@RequestParam UUID classId,
                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -232,7 +309,7 @@ public class TeacherController {
     public String myClasses(Model model) {
         try {
             User currentUser = authService.getCurrentUser();
-            List<Class> classes = classRepository.findByTeacherId(currentUser.getId());
+            List<Class> classes = referenceDataCache.getTeacherClasses(currentUser.getId());
 
             model.addAttribute("user", currentUser);
             model.addAttribute("classes", classes);
@@ -246,17 +323,22 @@ public class TeacherController {
 
     // Room Booking Methods
     @GetMapping("/booking")
-    public String bookingPage(Model model) {
+    public String bookingPage(@ModelAttribute("search") RoomSearchCriteria search, Model model) {
         try {
             User currentUser = authService.getCurrentUser();
-            List<Class> teacherClasses = classRepository.findByTeacherId(currentUser.getId());
-            List<Room> rooms = roomRepository.findActiveRooms();
+            List<Class> teacherClasses = referenceDataCache.getTeacherClasses(currentUser.getId());
+            List<Room> rooms = referenceDataCache.getActiveRooms();
             List<RoomBooking> upcomingBookings = roomBookingService.getUpcomingBookingsForTeacher(currentUser.getId());
 
             model.addAttribute("user", currentUser);
             model.addAttribute("classes", teacherClasses);
             model.addAttribute("rooms", rooms);
             model.addAttribute("upcomingBookings", upcomingBookings);
+            model.addAttribute("roomTypes", roomService.getRoomTypes());
+            addRoomSearchResults(search, rooms, model);
+            if (!model.containsAttribute("roomBookingRequest")) {
+                model.addAttribute("roomBookingRequest", new RoomBookingRequest());
+            }
 
             return "teacher/booking";
         } catch (Exception e) {
@@ -296,7 +378,9 @@ public class TeacherController {
     }
 
     @GetMapping("/booking/my-bookings")
-    public String myBookings(Model model) {
+    public String myBookings(@RequestParam(value = "status", required = false) RoomBooking.BookingStatus status,
+                             @RequestParam(value = "page", defaultValue = "0") int page,
+                             Model model) {
         try {
             User currentUser = authService.getCurrentUser();
             LocalDateTime now = LocalDateTime.now();
@@ -304,9 +388,13 @@ public class TeacherController {
 
             List<RoomBooking> bookings = roomBookingService.getBookingsForTeacher(
                     currentUser.getId(), now, oneMonthLater);
+            Page<RoomBooking> history = roomBookingService.getBookingHistoryForTeacher(
+                    currentUser.getId(), status, page, 20);
 
             model.addAttribute("user", currentUser);
             model.addAttribute("bookings", bookings);
+            model.addAttribute("history", history);
+            model.addAttribute("selectedStatus", status);
 
             return "teacher/my-bookings";
         } catch (Exception e) {
@@ -314,4 +402,17 @@ public class TeacherController {
             return "redirect:/teacher/booking";
         }
     }
-}
\ No newline at end of file
+
+    private void addRoomSearchResults(RoomSearchCriteria search, List<Room> activeRooms, Model model) {
+        if (search.isEmpty()) {
+            model.addAttribute("matchingRooms", activeRooms);
+            return;
+        }
+        try {
+            model.addAttribute("matchingRooms", roomService.searchRooms(search));
+        } catch (RuntimeException e) {
+            model.addAttribute("matchingRooms", List.of());
+            model.addAttribute("searchError", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.schoolapp.controller;
+
+import com.schoolapp.dto.UserSearchResult;
+import com.schoolapp.model.User;
+import com.schoolapp.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Typeahead user search for admin screens.
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+public class UserSearchApiController {
+
+    private final UserService userService;
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSearchResult>> search(@RequestParam("q") String query,
+                                                         @RequestParam(value = "role", required = false) User.UserRole role,
+                                                         @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(userService.typeahead(query, role, limit));
+    }
+}
@@ -0,0 +1,40 @@
+package com.schoolapp.dto;
+
+import com.schoolapp.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * What a verified API token says about its bearer.
+ */
+@Value
+@Builder
+public class ApiTokenClaims {
+
+    String tokenId;
+    UUID userId;
+    String email;
+    User.UserRole role;
+    String firstName;
+    String lastName;
+    Instant issuedAt;
+    Instant expiresAt;
+
+    /**
+     * A detached, unsaved User carrying just the token's claims, used as the request principal so
+     * the user does not have to be loaded.
+     */
+    public User toUser() {
+        return User.builder()
+                .id(userId)
+                .email(email)
+                .role(role)
+                .firstName(firstName)
+                .lastName(lastName)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class ApiTokenResponse {
+
+    String token;
+    String tokenType;
+    Instant expiresAt;
+}
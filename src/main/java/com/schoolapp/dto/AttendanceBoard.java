@@ -0,0 +1,30 @@
+package com.schoolapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+import lombok.With;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the live attendance board for one day, sent to each admin when they
+ * connect. The JSON form is rendered once per version and shared.
+ */
+@Value
+public class AttendanceBoard {
+
+    long version;
+    LocalDate date;
+    int present;
+    int absent;
+    List<ClassAttendanceTally> classes;
+
+    @JsonIgnore
+    @With
+    String json;
+
+    public int getMarked() {
+        return present + absent;
+    }
+}
@@ -0,0 +1,22 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * A change to one class on the live attendance board: its new counts and by how much they moved.
+ */
+@Value
+public class AttendanceBoardDelta {
+
+    long version;
+    LocalDate date;
+    ClassAttendanceTally tally;
+    int presentDelta;
+    int absentDelta;
+
+    public int getMarkedDelta() {
+        return presentDelta + absentDelta;
+    }
+}
@@ -0,0 +1,32 @@
+package com.schoolapp.dto;
+
+import com.schoolapp.model.AttendanceRecord;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One attendance record as returned by the attendance JSON endpoints. Built directly by a JPQL
+ * constructor expression.
+ */
+@Value
+@AllArgsConstructor
+public class AttendanceEntry {
+
+    UUID recordId;
+    LocalDate date;
+    UUID classId;
+    String className;
+    UUID studentId;
+    String studentName;
+    AttendanceRecord.AttendanceStatus status;
+    String notes;
+
+    public AttendanceEntry(UUID recordId, LocalDate date, UUID classId, String className, UUID studentId,
+                           String studentFirstName, String studentLastName,
+                           AttendanceRecord.AttendanceStatus status, String notes) {
+        this(recordId, date, classId, className, studentId, studentFirstName + " " + studentLastName, status, notes);
+    }
+}
@@ -0,0 +1,23 @@
+package com.schoolapp.dto;
+
+import com.schoolapp.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking as seen by the room rules: only the fields a rule may look at.
+ * {@code requestedAt} is the reference time for lead-time rules, so a batch can share one clock reading;
+ * it is null when the booking's time is not changing, which skips them.
+ */
+@Value
+@Builder
+public class BookingCandidate {
+
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    User.UserRole bookerRole;
+    Integer numberOfParticipants;
+    LocalDateTime requestedAt;
+}
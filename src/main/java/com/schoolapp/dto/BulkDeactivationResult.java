@@ -0,0 +1,34 @@
+package com.schoolapp.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class BulkDeactivationResult {
+
+    int requested;
+    int matched;
+    int deactivated;
+    int alreadyInactive;
+    int skippedAdministrators;
+    int sessionsDeactivated;
+    int signedOut;
+    List<String> unmatched;
+    long elapsedMillis;
+
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "%d users deactivated, %d already inactive, %d sessions ended, %d signed out (%d ms)",
+                deactivated, alreadyInactive, sessionsDeactivated, signedOut, elapsedMillis));
+        if (skippedAdministrators > 0) {
+            summary.append("; ").append(skippedAdministrators).append(" administrators skipped");
+        }
+        if (!unmatched.isEmpty()) {
+            summary.append("; not found: ").append(String.join(", ", unmatched));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package com.schoolapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One booking as shown in a week-view calendar. Built directly by a JPQL constructor
+ * expression so calendar snapshots never hold managed entities.
+ */
+@Value
+@AllArgsConstructor
+public class CalendarEntry {
+
+    UUID bookingId;
+    String title;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    UUID roomId;
+    String roomName;
+    UUID bookerId;
+    String bookerName;
+
+    public CalendarEntry(UUID bookingId, String title, LocalDateTime startTime, LocalDateTime endTime,
+                         UUID roomId, String roomName, UUID bookerId, String bookerFirstName, String bookerLastName) {
+        this(bookingId, title, startTime, endTime, roomId, roomName, bookerId, bookerFirstName + " " + bookerLastName);
+    }
+}
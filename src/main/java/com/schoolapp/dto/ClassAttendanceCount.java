@@ -0,0 +1,19 @@
+package com.schoolapp.dto;
+
+import java.util.UUID;
+
+/**
+ * A class and how many of its students are marked present and absent on one date.
+ */
+public interface ClassAttendanceCount {
+
+    UUID getClassId();
+
+    String getClassName();
+
+    String getTeacherName();
+
+    long getPresent();
+
+    long getAbsent();
+}
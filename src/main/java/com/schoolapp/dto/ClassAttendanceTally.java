@@ -0,0 +1,22 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * One class's row on the live attendance board.
+ */
+@Value
+public class ClassAttendanceTally {
+
+    UUID classId;
+    String className;
+    String teacherName;
+    int present;
+    int absent;
+
+    public int getMarked() {
+        return present + absent;
+    }
+}
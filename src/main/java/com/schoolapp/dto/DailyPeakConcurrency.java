@@ -0,0 +1,13 @@
+package com.schoolapp.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Highest number of rooms booked at the same instant on a given day.
+ */
+public interface DailyPeakConcurrency {
+
+    LocalDate getDay();
+
+    Integer getPeakConcurrency();
+}
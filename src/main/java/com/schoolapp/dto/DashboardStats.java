@@ -0,0 +1,28 @@
+package com.schoolapp.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of the admin dashboard numbers. When {@code totalsEstimated} is set,
+ * {@code totalAttendanceRecords} and {@code totalBookings} are planner estimates, not counts.
+ */
+@Value
+@Builder
+public class DashboardStats {
+
+    long totalUsers;
+    long activeStudents;
+    long activeTeachers;
+    long activeAdmins;
+    long totalClasses;
+    long totalRooms;
+    long totalAttendanceRecords;
+    long totalBookings;
+    boolean totalsEstimated;
+    long attendanceToday;
+    long presentToday;
+    LocalDateTime generatedAt;
+}
@@ -0,0 +1,25 @@
+package com.schoolapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+import lombok.With;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the live occupancy board. The JSON form is rendered once per
+ * change and shared by every poller and stream subscriber.
+ */
+@Value
+public class OccupancyBoard {
+
+    long version;
+    LocalDateTime generatedAt;
+    int occupiedCount;
+    List<RoomOccupancy> rooms;
+
+    @JsonIgnore
+    @With
+    String json;
+}
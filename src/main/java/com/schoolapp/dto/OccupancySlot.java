@@ -0,0 +1,18 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A booking as shown on the live occupancy board. The board is public (hallway screens), so it
+ * carries only the time slot, never the title or who booked it.
+ */
+@Value
+public class OccupancySlot {
+
+    UUID bookingId;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+}
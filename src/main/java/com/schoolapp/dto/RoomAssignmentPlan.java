@@ -0,0 +1,24 @@
+package com.schoolapp.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Value
+@Builder
+public class RoomAssignmentPlan {
+
+    UUID planId;
+    LocalDateTime generatedAt;
+    List<SessionAssignment> assignments;
+    int totalWastedSeats;
+    int currentWastedSeats;
+    int changedCount;
+    int unassignedCount;
+    // False when the time budget ran out before every part of the search finished
+    boolean optimal;
+    long elapsedMillis;
+}
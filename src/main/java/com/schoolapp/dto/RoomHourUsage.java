@@ -0,0 +1,18 @@
+package com.schoolapp.dto;
+
+import java.util.UUID;
+
+/**
+ * Occupied minutes of one room within one hour-of-week slot, as aggregated by PostgreSQL.
+ */
+public interface RoomHourUsage {
+
+    UUID getRoomId();
+
+    /** ISO day of week, 1 = Monday. */
+    Integer getDayOfWeek();
+
+    Integer getHourOfDay();
+
+    Integer getOccupiedMinutes();
+}
@@ -0,0 +1,22 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * What is happening in one room right now, and what is next.
+ */
+@Value
+public class RoomOccupancy {
+
+    UUID roomId;
+    String roomName;
+    String location;
+    OccupancySlot current;
+    OccupancySlot next;
+
+    public boolean isOccupied() {
+        return current != null;
+    }
+}
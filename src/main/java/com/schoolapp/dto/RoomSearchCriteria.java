@@ -0,0 +1,30 @@
+package com.schoolapp.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RoomSearchCriteria {
+
+    // Every listed item must be present in the room; matching ignores case
+    private List<String> equipment = new ArrayList<>();
+
+    private String type;
+
+    private Integer minCapacity;
+
+    private Integer maxCapacity;
+
+    // Matched as a case-insensitive prefix, e.g. "Blok Sains"
+    private String location;
+
+    public boolean isEmpty() {
+        return (equipment == null || equipment.stream().allMatch(e -> e == null || e.isBlank()))
+                && (type == null || type.isBlank())
+                && minCapacity == null
+                && maxCapacity == null
+                && (location == null || location.isBlank());
+    }
+}
@@ -0,0 +1,46 @@
+package com.schoolapp.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Immutable per-room utilization for one ISO week: occupied minutes per hour-of-week
+ * and per day. Instances are cached and shared, so the arrays must never be mutated.
+ */
+@Value
+@Builder
+public class RoomWeekUtilization {
+
+    UUID roomId;
+    String roomName;
+    LocalDate weekStart;
+
+    /** [day 0..6 (Monday first)][hour 0..23] occupied minutes. */
+    int[][] minutesByHour;
+
+    /** [day 0..6 (Monday first)] occupied minutes. */
+    int[] minutesByDay;
+
+    int totalMinutes;
+
+    public int getMinutes(int day, int hour) {
+        return minutesByHour[day][hour];
+    }
+
+    public int getDayMinutes(int day) {
+        return minutesByDay[day];
+    }
+
+    /** Share of an hour slot that is booked, 0-100. */
+    public int getHourPercent(int day, int hour) {
+        return Math.min(100, minutesByHour[day][hour] * 100 / 60);
+    }
+
+    /** Share of the whole week that is booked, 0-100. */
+    public double getWeekPercent() {
+        return totalMinutes * 100.0 / (7 * 24 * 60);
+    }
+}
@@ -0,0 +1,48 @@
+package com.schoolapp.dto;
+
+import com.schoolapp.model.AttendanceRecord;
+import com.schoolapp.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * One enrolled student on a teacher's attendance roster for a date, with their attendance if it was
+ * marked. The roster page and its row fragment render only from this, so re-rendering a row needs
+ * no entity loading. Built by a JPQL constructor expression or from a saved record.
+ */
+@Value
+@AllArgsConstructor
+public class RosterRow {
+
+    UUID studentId;
+    String studentName;
+    String studentNumber;
+    UUID recordId;
+    AttendanceRecord.AttendanceStatus status;
+    String notes;
+
+    public RosterRow(UUID studentId, String studentFirstName, String studentLastName, String studentNumber,
+                     UUID recordId, AttendanceRecord.AttendanceStatus status, String notes) {
+        this(studentId, studentFirstName + " " + studentLastName, studentNumber, recordId, status, notes);
+    }
+
+    public static RosterRow of(AttendanceRecord record) {
+        User student = record.getStudent();
+        return new RosterRow(student.getId(), student.getFullName(), student.getStudentId(),
+                record.getId(), record.getStatus(), record.getNotes());
+    }
+
+    public boolean isMarked() {
+        return status != null;
+    }
+
+    public boolean isPresent() {
+        return status == AttendanceRecord.AttendanceStatus.PRESENT;
+    }
+
+    public boolean isAbsent() {
+        return status == AttendanceRecord.AttendanceStatus.ABSENT;
+    }
+}
@@ -0,0 +1,26 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The summary bar above a class's attendance roster for a date.
+ */
+@Value
+public class RosterSummary {
+
+    long enrolled;
+    long present;
+    long absent;
+
+    public static RosterSummary of(List<RosterRow> roster) {
+        long present = roster.stream().filter(RosterRow::isPresent).count();
+        long absent = roster.stream().filter(RosterRow::isAbsent).count();
+        return new RosterSummary(roster.size(), present, absent);
+    }
+
+    public long getUnmarked() {
+        return Math.max(0, enrolled - present - absent);
+    }
+}
@@ -0,0 +1,36 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * The optimizer's proposed room for one weekly class session. {@code proposedRoomId} is null when
+ * no free room is large enough.
+ */
+@Value
+public class SessionAssignment {
+
+    UUID sessionId;
+    UUID classId;
+    String className;
+    DayOfWeek day;
+    LocalTime startTime;
+    LocalTime endTime;
+    int demand;
+    UUID currentRoomId;
+    String currentRoomName;
+    UUID proposedRoomId;
+    String proposedRoomName;
+    int wastedSeats;
+
+    public boolean isAssigned() {
+        return proposedRoomId != null;
+    }
+
+    public boolean isChanged() {
+        return proposedRoomId != null && !proposedRoomId.equals(currentRoomId);
+    }
+}
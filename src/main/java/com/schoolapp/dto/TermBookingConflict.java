@@ -0,0 +1,18 @@
+package com.schoolapp.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A timetable occurrence the term generator could not book, and why.
+ */
+@Value
+public class TermBookingConflict {
+
+    String className;
+    String roomName;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    String reason;
+}
@@ -0,0 +1,26 @@
+package com.schoolapp.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Value
+@Builder
+public class TermGenerationResult {
+
+    LocalDate from;
+    LocalDate to;
+    int occurrences;
+    int inserted;
+    int removed;
+    int unchanged;
+    List<TermBookingConflict> conflicts;
+    long elapsedMillis;
+
+    public String getSummary() {
+        return String.format("%d bookings added, %d removed, %d unchanged, %d could not be booked (%d ms)",
+                inserted, removed, unchanged, conflicts.size(), elapsedMillis);
+    }
+}
@@ -0,0 +1,28 @@
+package com.schoolapp.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One keyset page of the admin user list. Cursors are opaque; a null cursor means there is no
+ * page in that direction. {@code total} is null when a search text makes it unknown.
+ */
+@Value
+@Builder
+public class UserPage {
+
+    List<UserSummary> users;
+    String nextCursor;
+    String previousCursor;
+    Long total;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+}
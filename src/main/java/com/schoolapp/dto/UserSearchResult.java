@@ -0,0 +1,31 @@
+package com.schoolapp.dto;
+
+import java.util.UUID;
+
+/**
+ * One typeahead match; a higher score is a better match.
+ */
+public interface UserSearchResult {
+
+    UUID getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+
+    String getRole();
+
+    String getStudentId();
+
+    String getStaffId();
+
+    Boolean getActive();
+
+    Double getScore();
+
+    default String getFullName() {
+        return getFirstName() + " " + getLastName();
+    }
+}
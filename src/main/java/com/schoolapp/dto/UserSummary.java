@@ -0,0 +1,43 @@
+package com.schoolapp.dto;
+
+import com.schoolapp.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns the admin user list shows; unlike {@link User} it carries no password hash.
+ */
+@Value
+@Builder
+public class UserSummary {
+
+    UUID id;
+    String firstName;
+    String lastName;
+    String email;
+    User.UserRole role;
+    String studentId;
+    String staffId;
+    String phoneNumber;
+    boolean active;
+    LocalDateTime createdAt;
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+
+    public String getInitials() {
+        return initial(firstName) + initial(lastName);
+    }
+
+    public String getIdentifier() {
+        return studentId != null ? studentId : (staffId != null ? staffId : "N/A");
+    }
+
+    private static String initial(String name) {
+        return name == null || name.isEmpty() ? "" : name.substring(0, 1);
+    }
+}
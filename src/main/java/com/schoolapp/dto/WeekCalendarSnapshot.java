@@ -0,0 +1,26 @@
+package com.schoolapp.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable week view of a room's or a teacher's bookings. A snapshot is never modified; a booking
+ * write bumps the week's version and the next request builds a new one. {@code version} is the
+ * time of the last booking write to the week, in epoch milliseconds.
+ */
+@Value
+@Builder
+public class WeekCalendarSnapshot {
+
+    String kind;
+    UUID ownerId;
+    String isoWeek;
+    LocalDate weekStart;
+    long version;
+    String etag;
+    List<CalendarEntry> entries;
+}
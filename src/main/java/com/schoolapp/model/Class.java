@@ -1,16 +1,23 @@
 package com.schoolapp.model;
 
+import com.schoolapp.model.listener.ReferenceDataEntityListener;
+import com.schoolapp.model.listener.SecondLevelCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "classes")
+@EntityListeners({ReferenceDataEntityListener.class, SecondLevelCacheListener.class})
 @Table(name = "classes")
 @Data
 @Builder
@@ -52,6 +59,7 @@ public class Class {
     private LocalDateTime updatedAt;
 
     @OneToMany(mappedBy = "class", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "class-enrollment-lists")
     private List<ClassEnrollment> enrollments;
 
     @OneToMany(mappedBy = "class", cascade = CascadeType.ALL, orphanRemoval = true)
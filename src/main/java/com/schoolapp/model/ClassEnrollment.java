@@ -1,15 +1,22 @@
 package com.schoolapp.model;
 
+import com.schoolapp.model.listener.ReferenceDataEntityListener;
+import com.schoolapp.model.listener.SecondLevelCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "class-enrollments")
+@EntityListeners({ReferenceDataEntityListener.class, SecondLevelCacheListener.class})
 @Table(name = "class_enrollments")
 @Data
 @Builder
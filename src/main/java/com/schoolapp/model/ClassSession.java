@@ -0,0 +1,60 @@
+package com.schoolapp.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * One weekly meeting of a class. Rows are derived from {@link Class#getSchedule()} by a database
+ * trigger whenever a class is saved, so the entity is read-only: change the schedule instead.
+ */
+@Entity
+@Immutable
+@Table(name = "class_sessions")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ClassSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(columnDefinition = "UUID DEFAULT gen_random_uuid()")
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "class_id", nullable = false, foreignKey = @ForeignKey(name = "fk_session_class"))
+    private Class class_;
+
+    @Column(name = "day_of_week", nullable = false)
+    private Integer dayOfWeek; // ISO, 1 = Monday
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", foreignKey = @ForeignKey(name = "fk_session_room"))
+    private Room room;
+
+    @Column(name = "room_label")
+    private String roomLabel;
+
+    @Column(name = "created_at", updatable = false, insertable = false)
+    private LocalDateTime createdAt;
+
+    public DayOfWeek getDay() {
+        return DayOfWeek.of(dayOfWeek);
+    }
+
+    public String getTimeRangeDisplay() {
+        return startTime + " - " + endTime;
+    }
+}
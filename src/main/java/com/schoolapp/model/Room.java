@@ -1,16 +1,31 @@
 package com.schoolapp.model;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.model.listener.ReferenceDataEntityListener;
+import com.schoolapp.model.listener.SecondLevelCacheListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "rooms")
+@EntityListeners({ReferenceDataEntityListener.class, SecondLevelCacheListener.class})
 @Table(name = "rooms")
 @Data
 @Builder
@@ -18,6 +33,9 @@ import java.util.UUID;
 @AllArgsConstructor
 public class Room {
 
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(columnDefinition = "UUID DEFAULT gen_random_uuid()")
@@ -32,7 +50,8 @@ public class Room {
     @Column(nullable = false)
     private Integer capacity = 1;
 
-    @Column(columnDefinition = "TEXT")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
     private String equipment; // JSON array of available equipment
 
     private String location;
@@ -40,7 +59,8 @@ public class Room {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
-    @Column(name = "booking_rules", columnDefinition = "TEXT")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "booking_rules", columnDefinition = "jsonb")
     private String bookingRules; // JSON for specific booking restrictions
 
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -52,6 +72,12 @@ public class Room {
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<RoomBooking> bookings;
 
+    // Parsed form of equipment, built on first access and reset whenever equipment is replaced
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<String> equipmentItems;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -63,6 +89,35 @@ public class Room {
         updatedAt = LocalDateTime.now();
     }
 
+    public void setEquipment(String equipment) {
+        this.equipment = equipment;
+        this.equipmentItems = null;
+    }
+
+    public List<String> getEquipmentItems() {
+        List<String> items = equipmentItems;
+        if (items == null) {
+            items = parseEquipment(equipment);
+            equipmentItems = items;
+        }
+        return items;
+    }
+
+    public boolean hasEquipment(String item) {
+        return getEquipmentItems().stream().anyMatch(e -> e.equalsIgnoreCase(item));
+    }
+
+    private static List<String> parseEquipment(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            return JSON.readValue(json, STRING_LIST).stream().filter(Objects::nonNull).toList();
+        } catch (JsonProcessingException e) {
+            return List.of(json);
+        }
+    }
+
     public String getDisplayName() {
         return name + " (Capacity: " + capacity + ")";
     }
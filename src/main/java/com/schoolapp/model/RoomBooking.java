@@ -52,6 +52,10 @@ public class RoomBooking {
 
     private String notes;
 
+    // Set only by TermBookingGenerator, which writes through JDBC
+    @Column(name = "term_generated", nullable = false, insertable = false, updatable = false)
+    private Boolean termGenerated;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,41 @@
+package com.schoolapp.model.listener;
+
+import com.schoolapp.model.Room;
+import com.schoolapp.service.AttendanceVersionService;
+import com.schoolapp.service.ReferenceDataCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on the entities behind {@link ReferenceDataCache}; class and enrollment changes
+ * also advance the {@link AttendanceVersionService} epoch. Bulk SQL writes to those tables bypass
+ * it and have to do both themselves.
+ */
+@Component
+public class ReferenceDataEntityListener {
+
+    // Listeners are created with the EntityManagerFactory, before the repositories the cache needs
+    private final ObjectProvider<ReferenceDataCache> referenceDataCache;
+    private final ObjectProvider<AttendanceVersionService> attendanceVersionService;
+
+    public ReferenceDataEntityListener(ObjectProvider<ReferenceDataCache> referenceDataCache,
+                                       ObjectProvider<AttendanceVersionService> attendanceVersionService) {
+        this.referenceDataCache = referenceDataCache;
+        this.attendanceVersionService = attendanceVersionService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (entity instanceof Room) {
+            referenceDataCache.getObject().roomsChanged();
+        } else {
+            referenceDataCache.getObject().classesChanged();
+            attendanceVersionService.getObject().classesChanged();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.schoolapp.model.listener;
+
+import com.schoolapp.service.SecondLevelCacheSync;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on the entities kept in the Hibernate second-level cache; see {@link SecondLevelCacheSync}.
+ */
+@Component
+public class SecondLevelCacheListener {
+
+    // Listeners are created with the EntityManagerFactory that SecondLevelCacheSync needs
+    private final ObjectProvider<SecondLevelCacheSync> secondLevelCacheSync;
+
+    public SecondLevelCacheListener(ObjectProvider<SecondLevelCacheSync> secondLevelCacheSync) {
+        this.secondLevelCacheSync = secondLevelCacheSync;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        secondLevelCacheSync.getObject().entityChanged(entity);
+    }
+}
@@ -1,5 +1,7 @@
 package com.schoolapp.repository;
 
+import com.schoolapp.dto.AttendanceEntry;
+import com.schoolapp.dto.ClassAttendanceCount;
 import com.schoolapp.model.AttendanceRecord;
 import com.schoolapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -50,6 +52,11 @@ public interface AttendanceRecordRepository extends JpaRepository<AttendanceReco
     @Query("SELECT COUNT(ar) FROM AttendanceRecord ar WHERE ar.class.id = :classId AND ar.date = :date")
     long countByClassIdAndDate(@Param("classId") UUID classId, @Param("date") LocalDate date);
 
+    @Query("SELECT ar.status, COUNT(ar) FROM AttendanceRecord ar WHERE ar.class.id = :classId AND ar.date = :date " +
+            "AND EXISTS (SELECT e FROM ClassEnrollment e WHERE e.class = ar.class AND e.student = ar.student AND e.isActive = true) " +
+            "GROUP BY ar.status")
+    List<Object[]> countEnrolledByClassIdAndDateGroupByStatus(@Param("classId") UUID classId, @Param("date") LocalDate date);
+
     @Query("SELECT DISTINCT ar.date FROM AttendanceRecord ar WHERE ar.class.id = :classId ORDER BY ar.date DESC")
     List<LocalDate> findDistinctDatesByClassId(@Param("classId") UUID classId);
 
@@ -58,4 +65,24 @@ public interface AttendanceRecordRepository extends JpaRepository<AttendanceReco
 
     @Query("SELECT ar FROM AttendanceRecord ar WHERE ar.student.id = :studentId AND ar.class.id = :classId ORDER BY ar.date DESC")
     List<AttendanceRecord> findByStudentIdAndClassId(@Param("studentId") UUID studentId, @Param("classId") UUID classId);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.schoolapp.dto.AttendanceEntry(ar.id, ar.date, c.id, c.name, s.id, s.firstName, s.lastName, ar.status, ar.notes) " +
+            "FROM AttendanceRecord ar JOIN ar.class c JOIN ar.student s " +
+            "WHERE s.id = :studentId AND ar.date BETWEEN :startDate AND :endDate ORDER BY ar.date DESC, c.name")
+    List<AttendanceEntry> findEntriesByStudentIdAndDateRange(@Param("studentId") UUID studentId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.schoolapp.dto.AttendanceEntry(ar.id, ar.date, c.id, c.name, s.id, s.firstName, s.lastName, ar.status, ar.notes) " +
+            "FROM AttendanceRecord ar JOIN ar.class c JOIN ar.student s " +
+            "WHERE c.id = :classId AND ar.date = :date ORDER BY s.firstName, s.lastName")
+    List<AttendanceEntry> findEntriesByClassIdAndDate(@Param("classId") UUID classId, @Param("date") LocalDate date);
+
+    @Query(value = "SELECT c.id AS classId, c.name AS className, t.first_name || ' ' || t.last_name AS teacherName, " +
+                   "COUNT(a.id) FILTER (WHERE a.status = 'PRESENT') AS present, " +
+                   "COUNT(a.id) FILTER (WHERE a.status = 'ABSENT') AS absent " +
+                   "FROM classes c JOIN users t ON t.id = c.teacher_id " +
+                   "LEFT JOIN attendance_records a ON a.class_id = c.id AND a.date = CAST(:date AS date) " +
+                   "GROUP BY c.id, c.name, t.first_name, t.last_name " +
+                   "ORDER BY c.name",
+           nativeQuery = true)
+    List<ClassAttendanceCount> countByClassForDate(@Param("date") LocalDate date);
+}
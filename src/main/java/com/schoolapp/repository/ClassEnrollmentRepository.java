@@ -1,5 +1,6 @@
 package com.schoolapp.repository;
 
+import com.schoolapp.dto.RosterRow;
 import com.schoolapp.model.ClassEnrollment;
 import com.schoolapp.model.Class;
 import com.schoolapp.model.User;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,4 +42,13 @@ public interface ClassEnrollmentRepository extends JpaRepository<ClassEnrollment
 
     @Query("SELECT e FROM ClassEnrollment e WHERE e.student.id = :studentId AND e.isActive = true ORDER BY e.class.name")
     List<ClassEnrollment> findActiveEnrollmentsByStudentId(@Param("studentId") UUID studentId);
-}
\ No newline at end of file
+
+    @Query("SELECT e.class.id, COUNT(e) FROM ClassEnrollment e WHERE e.isActive = true GROUP BY e.class.id")
+    List<Object[]> countActiveEnrollmentsPerClass();
+
+    @Query("SELECT new com.schoolapp.dto.RosterRow(s.id, s.firstName, s.lastName, s.studentId, ar.id, ar.status, ar.notes) " +
+            "FROM ClassEnrollment e JOIN e.student s " +
+            "LEFT JOIN AttendanceRecord ar ON ar.student = s AND ar.class = e.class AND ar.date = :date " +
+            "WHERE e.class.id = :classId AND e.isActive = true ORDER BY s.firstName, s.lastName")
+    List<RosterRow> findRosterByClassIdAndDate(@Param("classId") UUID classId, @Param("date") LocalDate date);
+}
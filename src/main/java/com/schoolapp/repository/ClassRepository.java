@@ -18,12 +18,18 @@ public interface ClassRepository extends JpaRepository<Class, UUID> {
 
     List<Class> findByTeacherId(UUID teacherId);
 
+    @Query("SELECT DISTINCT c FROM Class c JOIN FETCH c.teacher LEFT JOIN FETCH c.enrollments WHERE c.teacher.id = :teacherId ORDER BY c.name")
+    List<Class> findByTeacherIdWithEnrollments(@Param("teacherId") UUID teacherId);
+
     @Query("SELECT c FROM Class c WHERE c.teacher.id = :teacherId ORDER BY c.gradeLevel, c.name")
     List<Class> findByTeacherIdOrderByGradeLevel(@Param("teacherId") UUID teacherId);
 
     @Query("SELECT c FROM Class c JOIN c.enrollments e WHERE e.student.id = :studentId AND e.isActive = true")
     List<Class> findClassesByStudent(@Param("studentId") UUID studentId);
 
+    @Query("SELECT c FROM Class c JOIN c.enrollments e JOIN FETCH c.teacher WHERE e.student.id = :studentId AND e.isActive = true ORDER BY c.name")
+    List<Class> findClassesByStudentWithTeacher(@Param("studentId") UUID studentId);
+
     @Query("SELECT c FROM Class c WHERE c.gradeLevel = :gradeLevel ORDER BY c.name")
     List<Class> findByGradeLevel(@Param("gradeLevel") Integer gradeLevel);
 
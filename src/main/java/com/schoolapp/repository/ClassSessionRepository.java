@@ -0,0 +1,20 @@
+package com.schoolapp.repository;
+
+import com.schoolapp.model.ClassSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ClassSessionRepository extends JpaRepository<ClassSession, UUID> {
+
+    @Query("SELECT s FROM ClassSession s JOIN FETCH s.class_ LEFT JOIN FETCH s.room ORDER BY s.dayOfWeek, s.startTime")
+    List<ClassSession> findAllForPlanning();
+
+    @Query("SELECT s FROM ClassSession s JOIN FETCH s.class_ c JOIN FETCH c.teacher JOIN FETCH s.room " +
+           "ORDER BY s.dayOfWeek, s.startTime")
+    List<ClassSession> findAllWithRoom();
+}
@@ -1,14 +1,20 @@
 package com.schoolapp.repository;
 
+import com.schoolapp.dto.CalendarEntry;
+import com.schoolapp.dto.DailyPeakConcurrency;
+import com.schoolapp.dto.RoomHourUsage;
 import com.schoolapp.model.Room;
 import com.schoolapp.model.RoomBooking;
 import com.schoolapp.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -30,9 +36,25 @@ public interface RoomBookingRepository extends JpaRepository<RoomBooking, UUID>
     @Query("SELECT rb FROM RoomBooking rb WHERE rb.room.id = :roomId AND rb.status = 'CONFIRMED' AND rb.startTime < :endTime AND rb.endTime > :startTime ORDER BY rb.startTime")
     List<RoomBooking> findConflictingBookings(@Param("roomId") UUID roomId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
 
-    @Query("SELECT rb FROM RoomBooking rb WHERE rb.booker.id = :bookerId AND rb.status = 'CONFIRMED' ORDER BY rb.startTime")
+    @Query("SELECT rb FROM RoomBooking rb JOIN FETCH rb.room LEFT JOIN FETCH rb.class_ WHERE rb.booker.id = :bookerId AND rb.status = 'CONFIRMED' ORDER BY rb.startTime")
     List<RoomBooking> findConfirmedBookingsByBooker(@Param("bookerId") UUID bookerId);
 
+    @Query(value = "SELECT rb FROM RoomBooking rb JOIN FETCH rb.room LEFT JOIN FETCH rb.class_ " +
+            "WHERE rb.booker.id = :bookerId AND rb.status = 'CONFIRMED' AND rb.startTime >= :from ORDER BY rb.startTime",
+            countQuery = "SELECT COUNT(rb) FROM RoomBooking rb WHERE rb.booker.id = :bookerId AND rb.status = 'CONFIRMED' AND rb.startTime >= :from")
+    Page<RoomBooking> findConfirmedBookingsByBooker(@Param("bookerId") UUID bookerId, @Param("from") LocalDateTime from, Pageable pageable);
+
+    @Query("SELECT rb FROM RoomBooking rb JOIN FETCH rb.room LEFT JOIN FETCH rb.class_ " +
+            "WHERE rb.booker.id = :bookerId AND rb.status = 'CONFIRMED' AND rb.startTime BETWEEN :startDate AND :endDate ORDER BY rb.startTime")
+    List<RoomBooking> findBookerBookingsInDateRange(@Param("bookerId") UUID bookerId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    @Query(value = "SELECT rb FROM RoomBooking rb JOIN FETCH rb.room LEFT JOIN FETCH rb.class_ " +
+            "WHERE rb.booker.id = :bookerId AND rb.startTime < :before AND (:status IS NULL OR rb.status = :status) ORDER BY rb.startTime DESC",
+            countQuery = "SELECT COUNT(rb) FROM RoomBooking rb " +
+            "WHERE rb.booker.id = :bookerId AND rb.startTime < :before AND (:status IS NULL OR rb.status = :status)")
+    Page<RoomBooking> findBookerHistory(@Param("bookerId") UUID bookerId, @Param("before") LocalDateTime before,
+                                        @Param("status") RoomBooking.BookingStatus status, Pageable pageable);
+
     @Query("SELECT rb FROM RoomBooking rb WHERE rb.room.id = :roomId AND rb.status = 'CONFIRMED' AND rb.startTime >= :startTime AND rb.startTime <= :endTime ORDER BY rb.startTime")
     List<RoomBooking> findBookingsInTimeRange(@Param("roomId") UUID roomId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
 
@@ -42,12 +64,81 @@ public interface RoomBookingRepository extends JpaRepository<RoomBooking, UUID>
     @Query("SELECT rb FROM RoomBooking rb WHERE rb.status = 'CONFIRMED' AND rb.startTime BETWEEN :startDate AND :endDate ORDER BY rb.startTime")
     List<RoomBooking> findBookingsInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    @Query("SELECT rb FROM RoomBooking rb WHERE rb.room.id = :roomId AND rb.status = 'CONFIRMED' AND rb.startTime BETWEEN :startDate AND :endDate ORDER BY rb.startTime")
+    List<RoomBooking> findBookingsInDateRange(@Param("roomId") UUID roomId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT rb.status, COUNT(rb) FROM RoomBooking rb WHERE rb.room.id = :roomId AND rb.startTime BETWEEN :startDate AND :endDate GROUP BY rb.status")
+    List<Object[]> countByStatusInDateRange(@Param("roomId") UUID roomId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    @Query(value = "SELECT CAST(COALESCE(SUM(EXTRACT(EPOCH FROM upper(o.overlap) - lower(o.overlap))), 0) / 60 AS bigint) " +
+            "FROM room_bookings rb " +
+            "CROSS JOIN LATERAL (SELECT tsrange(rb.start_time, rb.end_time) * tsrange(CAST(:startDate AS timestamp), CAST(:endDate AS timestamp)) AS overlap) o " +
+            "WHERE rb.room_id = :roomId AND rb.status = 'CONFIRMED' " +
+            "AND tsrange(rb.start_time, rb.end_time) && tsrange(CAST(:startDate AS timestamp), CAST(:endDate AS timestamp))",
+            nativeQuery = true)
+    long sumOccupiedMinutes(@Param("roomId") UUID roomId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Occupied minutes per room per hour-of-week slot. Only slots with at least one booking are returned.
+     */
+    @Query(value = "WITH week_bookings AS (" +
+            "  SELECT rb.room_id, tsrange(rb.start_time, rb.end_time) AS span FROM room_bookings rb " +
+            "  WHERE rb.status = 'CONFIRMED' AND rb.room_id IN (:roomIds) " +
+            "  AND rb.start_time < CAST(:weekStart AS timestamp) + INTERVAL '7 days' AND rb.end_time > CAST(:weekStart AS timestamp)" +
+            ") " +
+            "SELECT wb.room_id AS roomId, " +
+            "  CAST(EXTRACT(ISODOW FROM s.slot_start) AS integer) AS dayOfWeek, " +
+            "  CAST(EXTRACT(HOUR FROM s.slot_start) AS integer) AS hourOfDay, " +
+            "  CAST(SUM(EXTRACT(EPOCH FROM upper(o.overlap) - lower(o.overlap))) / 60 AS integer) AS occupiedMinutes " +
+            "FROM generate_series(CAST(:weekStart AS timestamp), CAST(:weekStart AS timestamp) + INTERVAL '167 hours', INTERVAL '1 hour') AS s(slot_start) " +
+            "JOIN week_bookings wb ON wb.span && tsrange(s.slot_start, s.slot_start + INTERVAL '1 hour') " +
+            "CROSS JOIN LATERAL (SELECT wb.span * tsrange(s.slot_start, s.slot_start + INTERVAL '1 hour') AS overlap) o " +
+            "GROUP BY wb.room_id, s.slot_start",
+            nativeQuery = true)
+    List<RoomHourUsage> findHourlyUsageForWeek(@Param("roomIds") Collection<UUID> roomIds, @Param("weekStart") LocalDateTime weekStart);
+
+    /**
+     * Peak number of simultaneously booked rooms per day, using a running sum over start (+1) and end (-1) events.
+     * Ends sort before starts at the same instant so back-to-back bookings do not count as overlapping.
+     */
+    @Query(value = "WITH events AS (" +
+            "  SELECT GREATEST(rb.start_time, CAST(:startDate AS timestamp)) AS t, 1 AS delta FROM room_bookings rb " +
+            "  WHERE rb.status = 'CONFIRMED' AND rb.start_time < CAST(:endDate AS timestamp) AND rb.end_time > CAST(:startDate AS timestamp) " +
+            "  UNION ALL " +
+            "  SELECT LEAST(rb.end_time, CAST(:endDate AS timestamp)) AS t, -1 AS delta FROM room_bookings rb " +
+            "  WHERE rb.status = 'CONFIRMED' AND rb.start_time < CAST(:endDate AS timestamp) AND rb.end_time > CAST(:startDate AS timestamp)" +
+            "), running AS (" +
+            "  SELECT e.t, SUM(e.delta) OVER (ORDER BY e.t, e.delta ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS in_use FROM events e" +
+            ") " +
+            "SELECT CAST(r.t AS date) AS day, CAST(MAX(r.in_use) AS integer) AS peakConcurrency " +
+            "FROM running r GROUP BY CAST(r.t AS date) ORDER BY day",
+            nativeQuery = true)
+    List<DailyPeakConcurrency> findDailyPeakConcurrency(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT new com.schoolapp.dto.CalendarEntry(rb.id, rb.title, rb.startTime, rb.endTime, r.id, r.name, b.id, b.firstName, b.lastName) " +
+            "FROM RoomBooking rb JOIN rb.room r JOIN rb.booker b " +
+            "WHERE r.id = :roomId AND rb.status = 'CONFIRMED' AND rb.startTime < :endTime AND rb.endTime > :startTime ORDER BY rb.startTime")
+    List<CalendarEntry> findRoomCalendarEntries(@Param("roomId") UUID roomId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT new com.schoolapp.dto.CalendarEntry(rb.id, rb.title, rb.startTime, rb.endTime, r.id, r.name, b.id, b.firstName, b.lastName) " +
+            "FROM RoomBooking rb JOIN rb.room r JOIN rb.booker b " +
+            "WHERE b.id = :bookerId AND rb.status = 'CONFIRMED' AND rb.startTime < :endTime AND rb.endTime > :startTime ORDER BY rb.startTime")
+    List<CalendarEntry> findBookerCalendarEntries(@Param("bookerId") UUID bookerId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
     @Query("SELECT rb FROM RoomBooking rb WHERE rb.status = 'CONFIRMED' AND rb.startTime >= CURRENT_DATE ORDER BY rb.startTime")
     List<RoomBooking> findUpcomingBookingsFromToday();
 
-    @Query("SELECT rb FROM RoomBooking rb WHERE rb.status = 'CONFIRMED' AND rb.startTime < CURRENT_TIME AND rb.endTime > CURRENT_TIME")
+    @Query("SELECT rb FROM RoomBooking rb WHERE rb.status = 'CONFIRMED' AND rb.startTime < CURRENT_TIMESTAMP AND rb.endTime > CURRENT_TIMESTAMP")
     List<RoomBooking> findCurrentBookings();
 
+    @Query("SELECT rb FROM RoomBooking rb JOIN FETCH rb.room " +
+            "WHERE rb.status = 'CONFIRMED' AND rb.endTime > :from AND rb.startTime < :to ORDER BY rb.startTime")
+    List<RoomBooking> findOccupancyWindow(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT rb FROM RoomBooking rb JOIN FETCH rb.room " +
+            "WHERE rb.room.id = :roomId AND rb.status = 'CONFIRMED' AND rb.endTime > :from AND rb.startTime < :to ORDER BY rb.startTime")
+    List<RoomBooking> findOccupancyWindowForRoom(@Param("roomId") UUID roomId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
     @Query("SELECT COUNT(rb) FROM RoomBooking rb WHERE rb.room.id = :roomId AND rb.status = 'CONFIRMED' AND rb.startTime < :endTime AND rb.endTime > :startTime")
     long countConflictingBookings(@Param("roomId") UUID roomId, @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
 
@@ -27,7 +27,7 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
     @Query("SELECT r FROM Room r WHERE r.capacity >= :minCapacity AND r.isActive = true ORDER BY r.capacity, r.name")
     List<Room> findActiveRoomsByMinCapacity(@Param("minCapacity") Integer minCapacity);
 
-    @Query("SELECT r FROM Room r WHERE r.type ILIKE %:type% OR r.name ILIKE %:type% AND r.isActive = true ORDER BY r.type, r.name")
+    @Query("SELECT r FROM Room r WHERE (r.type ILIKE %:type% OR r.name ILIKE %:type%) AND r.isActive = true ORDER BY r.type, r.name")
     List<Room> searchActiveRooms(@Param("type") String type);
 
     @Query("SELECT DISTINCT r.type FROM Room r WHERE r.isActive = true ORDER BY r.type")
@@ -38,4 +38,27 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
 
     @Query("SELECT r FROM Room r WHERE r.capacity >= :minCapacity AND r.capacity <= :maxCapacity AND r.isActive = true ORDER BY r.capacity")
     List<Room> findActiveRoomsByCapacityRange(@Param("minCapacity") Integer minCapacity, @Param("maxCapacity") Integer maxCapacity);
-}
\ No newline at end of file
+
+    /**
+     * Attribute search over active rooms. Equipment containment is answered by the GIN index on
+     * equipment_search; results are ranked by how closely the room fits the requested capacity,
+     * then by how little unrequested equipment it ties up. {@code location} is a prefix with LIKE
+     * wildcards escaped by a backslash.
+     */
+    @Query(value = "SELECT r.* FROM rooms r " +
+           "WHERE r.is_active = true " +
+           "AND (CAST(:equipment AS jsonb) IS NULL OR r.equipment_search @> CAST(:equipment AS jsonb)) " +
+           "AND (CAST(:type AS text) IS NULL OR lower(r.type) = lower(CAST(:type AS text))) " +
+           "AND (CAST(:minCapacity AS integer) IS NULL OR r.capacity >= CAST(:minCapacity AS integer)) " +
+           "AND (CAST(:maxCapacity AS integer) IS NULL OR r.capacity <= CAST(:maxCapacity AS integer)) " +
+           "AND (CAST(:location AS text) IS NULL OR lower(r.location) LIKE lower(CAST(:location AS text)) || '%' ESCAPE '\\') " +
+           "ORDER BY r.capacity - COALESCE(CAST(:minCapacity AS integer), 0), " +
+           "CASE WHEN jsonb_typeof(r.equipment) = 'array' THEN jsonb_array_length(r.equipment) ELSE 0 END, " +
+           "r.name",
+           nativeQuery = true)
+    List<Room> searchActiveRoomsByAttributes(@Param("equipment") String equipmentJson,
+                                             @Param("type") String type,
+                                             @Param("minCapacity") Integer minCapacity,
+                                             @Param("maxCapacity") Integer maxCapacity,
+                                             @Param("location") String location);
+}
@@ -1,8 +1,13 @@
 package com.schoolapp.repository;
 
+import com.schoolapp.dto.UserSearchResult;
 import com.schoolapp.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -21,6 +26,10 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     boolean existsByEmail(String email);
 
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
+
     boolean existsByStudentId(String studentId);
 
     boolean existsByStaffId(String staffId);
@@ -38,6 +47,42 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT u FROM User u WHERE u.firstName ILIKE %:search% OR u.lastName ILIKE %:search% OR u.email ILIKE %:search%")
     List<User> searchUsers(@Param("search") String search);
 
+    /**
+     * Ranked typeahead: id prefixes first, then name/email prefixes, then trigram word similarity
+     * (V15 indexes). {@code prefix} is the lower-cased, LIKE-escaped query followed by '%'.
+     */
+    @Query(value = "SELECT u.id AS id, u.first_name AS firstName, u.last_name AS lastName, u.email AS email, " +
+            "u.role AS role, u.student_id AS studentId, u.staff_id AS staffId, u.is_active AS active, " +
+            "MAX(c.score) AS score " +
+            "FROM (" +
+            "(SELECT id, 3.0 AS score FROM users WHERE lower(student_id) LIKE :prefix " +
+            "AND (CAST(:role AS VARCHAR) IS NULL OR role = CAST(:role AS VARCHAR)) LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT id, 3.0 AS score FROM users WHERE lower(staff_id) LIKE :prefix " +
+            "AND (CAST(:role AS VARCHAR) IS NULL OR role = CAST(:role AS VARCHAR)) LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT id, 2.0 AS score FROM users " +
+            "WHERE (lower(first_name) LIKE :prefix OR lower(last_name) LIKE :prefix OR lower(email) LIKE :prefix) " +
+            "AND (CAST(:role AS VARCHAR) IS NULL OR role = CAST(:role AS VARCHAR)) LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT id, word_similarity(:query, search_text) AS score FROM users " +
+            "WHERE :query <% search_text " +
+            "AND (CAST(:role AS VARCHAR) IS NULL OR role = CAST(:role AS VARCHAR)) " +
+            "ORDER BY score DESC LIMIT :limit)" +
+            ") c JOIN users u ON u.id = c.id " +
+            "GROUP BY u.id " +
+            "ORDER BY score DESC, u.last_name, u.first_name " +
+            "LIMIT :limit", nativeQuery = true)
+    List<UserSearchResult> typeahead(@Param("query") String query,
+                                     @Param("prefix") String prefix,
+                                     @Param("role") String role,
+                                     @Param("limit") int limit);
+
+    // Hibernate query cache; invalidated whenever the users table is written through Hibernate
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user-counts")
+    })
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role AND u.isActive = true")
     long countActiveUsersByRole(@Param("role") User.UserRole role);
 }
\ No newline at end of file
@@ -2,9 +2,12 @@ package com.schoolapp.repository;
 
 import com.schoolapp.model.User;
 import com.schoolapp.model.UserSession;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -47,6 +50,18 @@ public interface UserSessionRepository extends JpaRepository<UserSession, UUID>
     @Query("DELETE FROM UserSession us WHERE us.expiresAt < :now")
     void deleteExpiredSessions(@Param("now") LocalDateTime now);
 
+    /**
+     * Deletes at most {@code limit} expired sessions. Rows another instance is already deleting
+     * are skipped rather than waited on, so concurrent cleanups split the work. The native spaces
+     * hint keeps Hibernate from clearing the whole second-level cache after it.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_sessions"))
+    @Query(value = "DELETE FROM user_sessions WHERE id IN (" +
+            "SELECT id FROM user_sessions WHERE expires_at < :cutoff " +
+            "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredSessionsBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
     @Query("SELECT us FROM UserSession us WHERE us.isActive = true AND us.expiresAt < :now")
     List<UserSession> findExpiredActiveSessions(@Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -0,0 +1,321 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.schoolapp.dto.ApiTokenClaims;
+import com.schoolapp.dto.ApiTokenResponse;
+import com.schoolapp.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies stateless API tokens: HS256-signed JWTs carrying the user's id, email, name
+ * and role. Verification is a signature check plus two in-memory map lookups, with no database or
+ * session access.
+ *
+ * Keys rotate by changing {@code app.jwt.key-id}/{@code app.jwt.secret} and moving the old pair to
+ * {@code app.jwt.previous-keys} ({@code kid=secret,...}) until its tokens have expired.
+ * Revocations are kept in memory, stored in api_token_revocations so a restart does not forget
+ * them, and sent to other instances through {@link ClusterNotificationService}. They are dropped
+ * once the tokens they cover have expired.
+ */
+@Service
+@Slf4j
+public class ApiTokenService {
+
+    public static final String TOKEN_TYPE = "Bearer";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String TOKEN_TOPIC = "api-token-revoked";
+    private static final String USER_TOPIC = "api-user-revoked";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final int USERS_PER_MESSAGE = 150;
+    // Placeholder secrets shipped in old profile files; they are public, so anyone could sign with them
+    private static final Set<String> KNOWN_DEFAULT_SECRETS = Set.of(
+            "default-secret-key-change-in-production", "dev-secret-key");
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterNotificationService clusterNotifications;
+    private final long lifetimeMillis;
+
+    private final SigningKey signingKey;
+    private final Map<String, SigningKey> verificationKeys = new HashMap<>();
+
+    // Token id -> expiry (epoch millis), and user id -> tokens issued at or before this instant are void
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> revokedUsersBefore = new ConcurrentHashMap<>();
+
+    public ApiTokenService(ObjectMapper objectMapper,
+                           JdbcTemplate jdbcTemplate,
+                           ClusterNotificationService clusterNotifications,
+                           @Value("${app.jwt.secret:}") String secret,
+                           @Value("${app.jwt.key-id:primary}") String keyId,
+                           @Value("${app.jwt.previous-keys:}") String previousKeys,
+                           @Value("${app.jwt.expiration:900000}") long lifetimeMillis) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterNotifications = clusterNotifications;
+        this.lifetimeMillis = lifetimeMillis;
+
+        if (secret == null || secret.isBlank()) {
+            // No configured secret: tokens only live as long as this process
+            byte[] random = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(random);
+            secret = Base64.getEncoder().encodeToString(random);
+            log.warn("app.jwt.secret is not set; using a random key, API tokens will not survive a restart");
+        }
+        this.signingKey = new SigningKey(keyId, secret);
+        verificationKeys.put(keyId, signingKey);
+        for (String entry : previousKeys.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                String kid = entry.substring(0, separator).trim();
+                verificationKeys.put(kid, new SigningKey(kid, entry.substring(separator + 1).trim()));
+            }
+        }
+
+        clusterNotifications.subscribe(TOKEN_TOPIC, this::onTokenRevoked);
+        clusterNotifications.subscribe(USER_TOPIC, this::onUserRevoked);
+    }
+
+    public ApiTokenResponse issue(User user) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusMillis(lifetimeMillis);
+        ObjectNode header = objectMapper.createObjectNode()
+                .put("alg", "HS256")
+                .put("typ", "JWT")
+                .put("kid", signingKey.kid());
+        ObjectNode payload = objectMapper.createObjectNode()
+                .put("jti", UUID.randomUUID().toString())
+                .put("sub", user.getId().toString())
+                .put("email", user.getEmail())
+                .put("role", user.getRole().name())
+                .put("given_name", user.getFirstName())
+                .put("family_name", user.getLastName())
+                // NumericDate with milliseconds, so a token issued just after a revocation stays valid
+                .put("iat", BigDecimal.valueOf(now.toEpochMilli(), 3))
+                .put("exp", expiresAt.getEpochSecond());
+
+        String signingInput = encodeJson(header) + "." + encodeJson(payload);
+        String token = signingInput + "." + ENCODER.encodeToString(signingKey.sign(signingInput));
+        return new ApiTokenResponse(token, TOKEN_TYPE, expiresAt);
+    }
+
+    /**
+     * Returns the token's claims if it is well formed, correctly signed by a known key, unexpired
+     * and not revoked.
+     */
+    public Optional<ApiTokenClaims> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot <= firstDot) {
+            return Optional.empty();
+        }
+
+        try {
+            JsonNode header = objectMapper.readTree(DECODER.decode(token.substring(0, firstDot)));
+            if (!"HS256".equals(header.path("alg").asText())) {
+                return Optional.empty();
+            }
+            SigningKey key = verificationKeys.get(header.path("kid").asText(signingKey.kid()));
+            if (key == null) {
+                return Optional.empty();
+            }
+            byte[] expected = key.sign(token.substring(0, lastDot));
+            byte[] actual = DECODER.decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return Optional.empty();
+            }
+
+            JsonNode payload = objectMapper.readTree(DECODER.decode(token.substring(firstDot + 1, lastDot)));
+            Instant expiresAt = Instant.ofEpochSecond(payload.path("exp").asLong());
+            if (!Instant.now().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+            ApiTokenClaims claims = ApiTokenClaims.builder()
+                    .tokenId(payload.path("jti").asText())
+                    .userId(UUID.fromString(payload.path("sub").asText()))
+                    .email(payload.path("email").asText())
+                    .role(User.UserRole.valueOf(payload.path("role").asText()))
+                    .firstName(payload.path("given_name").asText())
+                    .lastName(payload.path("family_name").asText())
+                    .issuedAt(Instant.ofEpochMilli(payload.path("iat").decimalValue().movePointRight(3).longValue()))
+                    .expiresAt(expiresAt)
+                    .build();
+            return isRevoked(claims) ? Optional.empty() : Optional.of(claims);
+        } catch (Exception e) {
+            log.debug("Rejecting malformed API token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void revoke(ApiTokenClaims claims) {
+        revokedTokens.put(claims.getTokenId(), claims.getExpiresAt().toEpochMilli());
+        jdbcTemplate.update("INSERT INTO api_token_revocations (token_id, expires_at) VALUES (?, ?)",
+                claims.getTokenId(), Timestamp.from(claims.getExpiresAt()));
+        clusterNotifications.publish(TOKEN_TOPIC, claims.getTokenId() + ":" + claims.getExpiresAt().toEpochMilli());
+    }
+
+    /**
+     * Voids every token issued to these users so far, e.g. when they are deactivated.
+     */
+    public void revokeUsers(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Timestamp revokedAt = new Timestamp(now);
+        Timestamp expiresAt = new Timestamp(now + lifetimeMillis);
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (UUID userId : userIds) {
+            revokedUsersBefore.merge(userId, now, Math::max);
+            rows.add(new Object[]{userId, revokedAt, expiresAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO api_token_revocations (user_id, revoked_at, expires_at) VALUES (?, ?, ?)", rows);
+
+        StringJoiner batch = new StringJoiner(",", now + ":", "");
+        int inBatch = 0;
+        for (UUID userId : userIds) {
+            batch.add(userId.toString());
+            // NOTIFY payloads are limited to 8000 bytes
+            if (++inBatch == USERS_PER_MESSAGE) {
+                clusterNotifications.publish(USER_TOPIC, batch.toString());
+                batch = new StringJoiner(",", now + ":", "");
+                inBatch = 0;
+            }
+        }
+        if (inBatch > 0) {
+            clusterNotifications.publish(USER_TOPIC, batch.toString());
+        }
+    }
+
+    public void revokeUser(UUID userId) {
+        revokeUsers(List.of(userId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        Map<String, Long> tokens = new HashMap<>();
+        Map<UUID, Long> users = new HashMap<>();
+        jdbcTemplate.query("SELECT token_id, user_id, revoked_at, expires_at FROM api_token_revocations " +
+                "WHERE expires_at > CURRENT_TIMESTAMP", rs -> {
+            String tokenId = rs.getString("token_id");
+            if (tokenId != null) {
+                tokens.put(tokenId, rs.getTimestamp("expires_at").getTime());
+            } else {
+                users.merge(rs.getObject("user_id", UUID.class), rs.getTimestamp("revoked_at").getTime(), Math::max);
+            }
+        });
+        revokedTokens.putAll(tokens);
+        users.forEach((userId, before) -> revokedUsersBefore.merge(userId, before, Math::max));
+        log.debug("Loaded {} token and {} user API revocations", tokens.size(), users.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-purge-ms:600000}", initialDelayString = "${app.jwt.revocation-purge-ms:600000}")
+    public void purgeExpiredRevocations() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsersBefore.values().removeIf(before -> before + lifetimeMillis <= now);
+        jdbcTemplate.update("DELETE FROM api_token_revocations WHERE expires_at <= CURRENT_TIMESTAMP");
+    }
+
+    private boolean isRevoked(ApiTokenClaims claims) {
+        if (revokedTokens.containsKey(claims.getTokenId())) {
+            return true;
+        }
+        Long before = revokedUsersBefore.get(claims.getUserId());
+        return before != null && claims.getIssuedAt().toEpochMilli() <= before;
+    }
+
+    private void onTokenRevoked(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            loadRevocations();
+            return;
+        }
+        int separator = message.lastIndexOf(':');
+        revokedTokens.put(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)));
+    }
+
+    private void onUserRevoked(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            loadRevocations();
+            return;
+        }
+        int separator = message.indexOf(':');
+        long before = Long.parseLong(message.substring(0, separator));
+        for (String userId : message.substring(separator + 1).split(",")) {
+            revokedUsersBefore.merge(UUID.fromString(userId), before, Math::max);
+        }
+    }
+
+    private String encodeJson(JsonNode node) {
+        try {
+            return ENCODER.encodeToString(objectMapper.writeValueAsBytes(node));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode token", e);
+        }
+    }
+
+    /**
+     * One HMAC key; Mac instances are not thread-safe, so each thread keeps its own.
+     */
+    private static final class SigningKey {
+
+        private final String kid;
+        private final ThreadLocal<Mac> mac;
+
+        SigningKey(String kid, String secret) {
+            if (KNOWN_DEFAULT_SECRETS.contains(secret)) {
+                throw new IllegalStateException("API token key '" + kid + "' is a published default; set app.jwt.secret");
+            }
+            byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("API token key '" + kid + "' is shorter than " + MIN_SECRET_BYTES + " bytes");
+            }
+            SecretKeySpec spec = new SecretKeySpec(keyBytes, ALGORITHM);
+            this.kid = kid;
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac instance = Mac.getInstance(ALGORITHM);
+                    instance.init(spec);
+                    return instance;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HmacSHA256 is not available", e);
+                }
+            });
+        }
+
+        String kid() {
+            return kid;
+        }
+
+        byte[] sign(String signingInput) {
+            return mac.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.schoolapp.service;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by {@link AttendanceService} when attendance for one class and date was marked or
+ * corrected. {@code changedAt} is taken once by the writer so every instance stamps the change alike.
+ * The deltas are how many more (or fewer) students of the class are now marked present or absent.
+ */
+@Value
+public class AttendanceChangedEvent {
+
+    UUID classId;
+    LocalDate date;
+    Set<UUID> studentIds;
+    int presentDelta;
+    int absentDelta;
+    long changedAt;
+
+    public static AttendanceChangedEvent of(UUID classId, LocalDate date, Set<UUID> studentIds,
+                                            int presentDelta, int absentDelta) {
+        return new AttendanceChangedEvent(classId, date, Set.copyOf(studentIds), presentDelta, absentDelta,
+                System.currentTimeMillis());
+    }
+}
@@ -1,13 +1,18 @@
 package com.schoolapp.service;
 
+import com.schoolapp.dto.AttendanceEntry;
 import com.schoolapp.dto.AttendanceUpdateRequest;
+import com.schoolapp.dto.RosterRow;
+import com.schoolapp.dto.RosterSummary;
 import com.schoolapp.model.AttendanceRecord;
 import com.schoolapp.model.Class;
+import com.schoolapp.model.ClassEnrollment;
 import com.schoolapp.model.User;
 import com.schoolapp.repository.AttendanceRecordRepository;
 import com.schoolapp.repository.ClassRepository;
 import com.schoolapp.repository.ClassEnrollmentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,7 +27,9 @@ public class AttendanceService {
     private final AttendanceRecordRepository attendanceRepository;
     private final ClassRepository classRepository;
     private final ClassEnrollmentRepository enrollmentRepository;
+    private final ReferenceDataCache referenceDataCache;
     private final AuthService authService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public List<AttendanceRecord> markAttendanceForClass(UUID classId, LocalDate date, Map<UUID, AttendanceRecord.AttendanceStatus> attendanceData, Map<UUID, String> notes) {
@@ -46,6 +53,8 @@ public class AttendanceService {
                 .collect(Collectors.toList());
 
         List<AttendanceRecord> records = new ArrayList<>();
+        int presentDelta = 0;
+        int absentDelta = 0;
 
         for (User student : enrolledStudents) {
             AttendanceRecord.AttendanceStatus status = attendanceData.getOrDefault(student.getId(), AttendanceRecord.AttendanceStatus.ABSENT);
@@ -55,6 +64,10 @@ public class AttendanceService {
             Optional<AttendanceRecord> existingRecord = attendanceRepository
                     .findByStudentIdAndClassIdAndDate(student.getId(), classId, date);
 
+            AttendanceRecord.AttendanceStatus previous = existingRecord.map(AttendanceRecord::getStatus).orElse(null);
+            presentDelta += delta(previous, status, AttendanceRecord.AttendanceStatus.PRESENT);
+            absentDelta += delta(previous, status, AttendanceRecord.AttendanceStatus.ABSENT);
+
             AttendanceRecord record;
             if (existingRecord.isPresent()) {
                 record = existingRecord.get();
@@ -74,6 +87,8 @@ public class AttendanceService {
             records.add(attendanceRepository.save(record));
         }
 
+        eventPublisher.publishEvent(AttendanceChangedEvent.of(classId, date,
+                enrolledStudents.stream().map(User::getId).collect(Collectors.toSet()), presentDelta, absentDelta));
         return records;
     }
 
@@ -97,11 +112,17 @@ public class AttendanceService {
                 .collect(Collectors.toList());
 
         List<AttendanceRecord> records = new ArrayList<>();
+        int presentDelta = 0;
+        int absentDelta = 0;
 
         for (User student : enrolledStudents) {
             Optional<AttendanceRecord> existingRecord = attendanceRepository
                     .findByStudentIdAndClassIdAndDate(student.getId(), classId, date);
 
+            AttendanceRecord.AttendanceStatus previous = existingRecord.map(AttendanceRecord::getStatus).orElse(null);
+            presentDelta += delta(previous, AttendanceRecord.AttendanceStatus.PRESENT, AttendanceRecord.AttendanceStatus.PRESENT);
+            absentDelta += delta(previous, AttendanceRecord.AttendanceStatus.PRESENT, AttendanceRecord.AttendanceStatus.ABSENT);
+
             AttendanceRecord record;
             if (existingRecord.isPresent()) {
                 record = existingRecord.get();
@@ -119,6 +140,8 @@ public class AttendanceService {
             records.add(attendanceRepository.save(record));
         }
 
+        eventPublisher.publishEvent(AttendanceChangedEvent.of(classId, date,
+                enrolledStudents.stream().map(User::getId).collect(Collectors.toSet()), presentDelta, absentDelta));
         return records;
     }
 
@@ -137,10 +160,63 @@ public class AttendanceService {
             throw new RuntimeException("You can only update attendance for your own classes");
         }
 
+        AttendanceRecord.AttendanceStatus previous = record.getStatus();
         record.setStatus(updateRequest.getStatus());
         record.setNotes(updateRequest.getNotes());
 
-        return attendanceRepository.save(record);
+        AttendanceRecord saved = attendanceRepository.save(record);
+        eventPublisher.publishEvent(AttendanceChangedEvent.of(saved.getClass_().getId(), saved.getDate(),
+                Set.of(saved.getStudent().getId()),
+                delta(previous, saved.getStatus(), AttendanceRecord.AttendanceStatus.PRESENT),
+                delta(previous, saved.getStatus(), AttendanceRecord.AttendanceStatus.ABSENT)));
+        return saved;
+    }
+
+    /**
+     * Marks one student, for per-row changes on the roster page. Returns the row as it now renders.
+     */
+    @Transactional
+    public RosterRow markStudentAttendance(UUID classId, LocalDate date, UUID studentId,
+                                           AttendanceRecord.AttendanceStatus status, String notes) {
+        User currentUser = authService.getCurrentUser();
+        if (!isOwnClass(classId)) {
+            throw new RuntimeException("You can only mark attendance for your own classes");
+        }
+
+        Optional<AttendanceRecord> existingRecord = attendanceRepository
+                .findByStudentIdAndClassIdAndDate(studentId, classId, date);
+        AttendanceRecord.AttendanceStatus previous = existingRecord.map(AttendanceRecord::getStatus).orElse(null);
+
+        AttendanceRecord record;
+        if (existingRecord.isPresent()) {
+            record = existingRecord.get();
+            record.setStatus(status);
+            record.setNotes(notes);
+        } else {
+            ClassEnrollment enrollment = enrollmentRepository.findByClassIdAndStudentId(classId, studentId)
+                    .filter(ClassEnrollment::getIsActive)
+                    .orElseThrow(() -> new RuntimeException("Student is not enrolled in this class: " + studentId));
+            record = AttendanceRecord.builder()
+                    .student(enrollment.getStudent())
+                    .class_(enrollment.getClass_())
+                    .teacher(currentUser)
+                    .date(date)
+                    .status(status)
+                    .notes(notes)
+                    .build();
+        }
+
+        AttendanceRecord saved = attendanceRepository.save(record);
+        eventPublisher.publishEvent(AttendanceChangedEvent.of(classId, date, Set.of(studentId),
+                delta(previous, status, AttendanceRecord.AttendanceStatus.PRESENT),
+                delta(previous, status, AttendanceRecord.AttendanceStatus.ABSENT)));
+        return RosterRow.of(saved);
+    }
+
+    // +1 if a record moved into the status, -1 if it left it; previous is null for a new record
+    private static int delta(AttendanceRecord.AttendanceStatus previous, AttendanceRecord.AttendanceStatus current,
+                             AttendanceRecord.AttendanceStatus counted) {
+        return (current == counted ? 1 : 0) - (previous == counted ? 1 : 0);
     }
 
     public List<AttendanceRecord> getAttendanceByClassAndDate(UUID classId, LocalDate date) {
@@ -177,7 +253,7 @@ public class AttendanceService {
 
         // Teachers can view attendance for their students
         if (currentUser.getRole() == User.UserRole.TEACHER) {
-            List<Class> teacherClasses = classRepository.findByTeacherId(currentUser.getId());
+            List<Class> teacherClasses = referenceDataCache.getTeacherClasses(currentUser.getId());
             List<UUID> teacherClassIds = teacherClasses.stream().map(Class::getId).collect(Collectors.toList());
 
             return attendanceRepository.findByStudentIdAndDateRange(studentId, startDate, endDate)
@@ -232,6 +308,17 @@ public class AttendanceService {
                 ));
     }
 
+    /**
+     * A student's attendance counts per class, from a single query.
+     */
+    public Map<UUID, Map<AttendanceRecord.AttendanceStatus, Long>> getStudentAttendanceStatsByClass(UUID studentId, LocalDate startDate, LocalDate endDate) {
+        return getStudentAttendanceHistory(studentId, startDate, endDate).stream()
+                .collect(Collectors.groupingBy(
+                        record -> record.getClass_().getId(),
+                        Collectors.groupingBy(AttendanceRecord::getStatus, Collectors.counting())
+                ));
+    }
+
     public double getAttendancePercentage(UUID classId, LocalDate startDate, LocalDate endDate) {
         Map<AttendanceRecord.AttendanceStatus, Long> stats = getAttendanceStats(classId, startDate, endDate);
         long total = stats.values().stream().mapToLong(Long::longValue).sum();
@@ -248,6 +335,64 @@ public class AttendanceService {
         return total > 0 ? (double) present / total * 100 : 0;
     }
 
+    /**
+     * The current student's attendance in a date range, for the JSON API.
+     */
+    public List<AttendanceEntry> getMyAttendanceEntries(LocalDate startDate, LocalDate endDate) {
+        return attendanceRepository.findEntriesByStudentIdAndDateRange(authService.getCurrentUser().getId(), startDate, endDate);
+    }
+
+    /**
+     * One class's attendance sheet for a date, for the JSON API. Teachers only see their own classes.
+     */
+    public List<AttendanceEntry> getClassAttendanceEntries(UUID classId, LocalDate date) {
+        if (!isOwnClass(classId)) {
+            throw new RuntimeException("You can only view attendance for your own classes");
+        }
+        return attendanceRepository.findEntriesByClassIdAndDate(classId, date);
+    }
+
+    /**
+     * A class's active students with their attendance on a date, in one query. Teachers only see their own classes.
+     */
+    public List<RosterRow> getRoster(UUID classId, LocalDate date) {
+        if (!isOwnClass(classId)) {
+            throw new RuntimeException("You can only view attendance for your own classes");
+        }
+        return enrollmentRepository.findRosterByClassIdAndDate(classId, date);
+    }
+
+    /**
+     * The roster's summary bar without loading the roster: enrollments come from the reference
+     * data cache, the counts from one grouped query.
+     */
+    public RosterSummary getRosterSummary(UUID classId, LocalDate date) {
+        User currentUser = authService.getCurrentUser();
+        Class classEntity = referenceDataCache.getTeacherClasses(currentUser.getId()).stream()
+                .filter(teacherClass -> teacherClass.getId().equals(classId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("You can only view attendance for your own classes"));
+        long enrolled = classEntity.getEnrollments().stream().filter(ClassEnrollment::getIsActive).count();
+
+        Map<AttendanceRecord.AttendanceStatus, Long> counts = new EnumMap<>(AttendanceRecord.AttendanceStatus.class);
+        for (Object[] row : attendanceRepository.countEnrolledByClassIdAndDateGroupByStatus(classId, date)) {
+            counts.put((AttendanceRecord.AttendanceStatus) row[0], (Long) row[1]);
+        }
+        return new RosterSummary(enrolled,
+                counts.getOrDefault(AttendanceRecord.AttendanceStatus.PRESENT, 0L),
+                counts.getOrDefault(AttendanceRecord.AttendanceStatus.ABSENT, 0L));
+    }
+
+    /**
+     * Whether the current teacher teaches the class; answered from the reference data cache.
+     */
+    public boolean isOwnClass(UUID classId) {
+        User currentUser = authService.getCurrentUser();
+        return currentUser.getRole() == User.UserRole.TEACHER
+                && referenceDataCache.getTeacherClasses(currentUser.getId()).stream()
+                        .anyMatch(classEntity -> classEntity.getId().equals(classId));
+    }
+
     public List<AttendanceRecord> getTodayAttendanceForTeacher(UUID teacherId) {
         return attendanceRepository.findByTeacherIdAndDate(teacherId, LocalDate.now());
     }
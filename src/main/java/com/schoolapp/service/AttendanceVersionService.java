@@ -0,0 +1,203 @@
+package com.schoolapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version stamps for attendance, per student and per (class, date), that back ETag and
+ * Last-Modified on the attendance pages. A stamp is the time of the last attendance write, never
+ * lower than a shared epoch, so answering a conditional GET is a map lookup.
+ *
+ * Writes are stamped by the writing instance and sent to the others through
+ * {@link ClusterNotificationService}. Keys not written since the epoch share the epoch. The epoch
+ * lives in the version_epochs table and is advanced there, so every instance gets the same value:
+ * in the transaction that changes a class or enrollment (which the same pages show), and when an
+ * instance's maps are full or it missed notifications, including at startup. Each advance is
+ * published, and every page renders once more.
+ */
+@Service
+@Slf4j
+public class AttendanceVersionService {
+
+    private static final String TOPIC = "attendance";
+    private static final int MAX_KEYS = 50000;
+    private static final int STUDENTS_PER_MESSAGE = 150;
+    private static final String EPOCH_MESSAGE = "epoch";
+    private static final String ADVANCE_EPOCH_SQL =
+            "UPDATE version_epochs SET stamp = GREATEST(stamp + 1, ?) WHERE name = 'attendance' RETURNING stamp";
+
+    private final ClusterNotificationService clusterNotifications;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate epochTransaction;
+
+    private final Map<UUID, Long> studentStamps = new ConcurrentHashMap<>();
+    private final Map<ClassDate, Long> classDateStamps = new ConcurrentHashMap<>();
+    // Until the listener connects and the first resync advances the shared epoch
+    private volatile long epoch = System.currentTimeMillis();
+
+    public AttendanceVersionService(ClusterNotificationService clusterNotifications,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager) {
+        this.clusterNotifications = clusterNotifications;
+        this.jdbcTemplate = jdbcTemplate;
+        this.epochTransaction = new TransactionTemplate(transactionManager);
+        epochTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        clusterNotifications.subscribe(TOPIC, this::onMessage);
+    }
+
+    /**
+     * Last change to anything on a student's attendance pages, in epoch milliseconds.
+     */
+    public long studentStamp(UUID studentId) {
+        return latest(studentStamps.getOrDefault(studentId, 0L));
+    }
+
+    /**
+     * Last change to a class's attendance sheet for one date, in epoch milliseconds.
+     */
+    public long classDateStamp(UUID classId, LocalDate date) {
+        return latest(classDateStamps.getOrDefault(new ClassDate(classId, date), 0L));
+    }
+
+    private long latest(long stamp) {
+        return Math.max(stamp, epoch);
+    }
+
+    /**
+     * Called when a class or enrollment was saved or removed. Advances the shared epoch as part of
+     * the writer's transaction, once per transaction; this instance adopts it once that commits.
+     */
+    public void classesChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advanceEpoch();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        long advanced = advanceEpochInTransaction();
+        TransactionSynchronizationManager.bindResource(this, advanced);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AttendanceVersionService.this);
+                if (status == STATUS_COMMITTED) {
+                    adoptEpoch(advanced);
+                }
+            }
+        });
+    }
+
+    // NOTIFY is transactional: other instances hear about the change only if it commits
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publish(AttendanceChangedEvent event) {
+        String prefix = event.getChangedAt() + ";" + event.getClassId() + ";" + event.getDate() + ";";
+        if (event.getStudentIds().isEmpty()) {
+            clusterNotifications.publish(TOPIC, prefix);
+            return;
+        }
+        StringJoiner batch = new StringJoiner(",");
+        int inBatch = 0;
+        for (UUID studentId : event.getStudentIds()) {
+            batch.add(studentId.toString());
+            // NOTIFY payloads are limited to 8000 bytes
+            if (++inBatch == STUDENTS_PER_MESSAGE) {
+                clusterNotifications.publish(TOPIC, prefix + batch);
+                batch = new StringJoiner(",");
+                inBatch = 0;
+            }
+        }
+        if (inBatch > 0) {
+            clusterNotifications.publish(TOPIC, prefix + batch);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        bump(event.getChangedAt(), event.getClassId(), event.getDate(), event.getStudentIds());
+    }
+
+    private void bump(long changedAt, UUID classId, LocalDate date, Iterable<UUID> studentIds) {
+        if (studentStamps.size() > MAX_KEYS || classDateStamps.size() > MAX_KEYS) {
+            log.debug("Attendance version maps are full, moving the epoch forward");
+            advanceEpoch();
+        }
+        classDateStamps.compute(new ClassDate(classId, date), (key, old) -> next(old, changedAt));
+        for (UUID studentId : studentIds) {
+            studentStamps.compute(studentId, (key, old) -> next(old, changedAt));
+        }
+    }
+
+    // Always past the stamp served so far, even for two writes within one millisecond
+    private long next(Long old, long changedAt) {
+        return Math.max(changedAt, latest(old == null ? 0L : old) + 1);
+    }
+
+    // In its own transaction, so it also works from AFTER_COMMIT listeners and the listener thread
+    private void advanceEpoch() {
+        try {
+            Long advanced = epochTransaction.execute(status -> advanceEpochInTransaction());
+            adoptEpoch(advanced != null ? advanced : System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Still move forward here so this instance never serves a stamp it may have missed
+            log.warn("Could not advance the shared attendance epoch: {}", e.getMessage());
+            adoptEpoch(System.currentTimeMillis());
+        }
+    }
+
+    private long advanceEpochInTransaction() {
+        Long advanced = jdbcTemplate.queryForObject(ADVANCE_EPOCH_SQL, Long.class, System.currentTimeMillis());
+        clusterNotifications.publish(TOPIC, EPOCH_MESSAGE + ";" + advanced);
+        return advanced;
+    }
+
+    private synchronized void adoptEpoch(long advanced) {
+        if (advanced <= epoch) {
+            return;
+        }
+        epoch = advanced;
+        // Stamps at or below the epoch add nothing
+        studentStamps.values().removeIf(stamp -> stamp <= advanced);
+        classDateStamps.values().removeIf(stamp -> stamp <= advanced);
+    }
+
+    private void onMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            // Writes may have been missed: move every instance past them
+            advanceEpoch();
+            return;
+        }
+        String[] parts = message.split(";", 4);
+        if (EPOCH_MESSAGE.equals(parts[0])) {
+            adoptEpoch(Long.parseLong(parts[1]));
+            return;
+        }
+        List<UUID> studentIds = new ArrayList<>();
+        if (parts.length == 4 && !parts[3].isEmpty()) {
+            for (String studentId : parts[3].split(",")) {
+                studentIds.add(UUID.fromString(studentId));
+            }
+        }
+        bump(Long.parseLong(parts[0]), UUID.fromString(parts[1]), LocalDate.parse(parts[2]), studentIds);
+    }
+
+    private record ClassDate(UUID classId, LocalDate date) {
+    }
+}
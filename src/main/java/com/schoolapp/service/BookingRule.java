@@ -0,0 +1,15 @@
+package com.schoolapp.service;
+
+import com.schoolapp.dto.BookingCandidate;
+
+/**
+ * A single compiled room booking rule.
+ */
+@FunctionalInterface
+public interface BookingRule {
+
+    /**
+     * Returns a user-facing reason the candidate breaks this rule, or {@code null} if it complies.
+     */
+    String check(BookingCandidate candidate);
+}
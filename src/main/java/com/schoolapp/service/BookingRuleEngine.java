@@ -0,0 +1,180 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.dto.BookingCandidate;
+import com.schoolapp.model.Room;
+import com.schoolapp.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces each room's booking_rules. The JSON is compiled once per room into an array of
+ * {@link BookingRule}s and cached until the room's rules text changes, so checking a booking is
+ * a handful of comparisons. Supported keys:
+ *
+ * <pre>
+ * {
+ *   "maxDurationMinutes": 120,
+ *   "minDurationMinutes": 30,
+ *   "allowedHours": {"start": "07:30", "end": "17:00"},
+ *   "allowedDays": ["MONDAY", "TUESDAY"],
+ *   "allowedRoles": ["TEACHER"],
+ *   "minLeadTimeMinutes": 1440,
+ *   "maxParticipants": 20
+ * }
+ * </pre>
+ *
+ * Administrators are exempt from {@code allowedRoles}. {@code minLeadTimeMinutes} only applies to
+ * candidates with a {@code requestedAt}, i.e. new bookings and changes of time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingRuleEngine {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<UUID, CompiledBookingRules> compiledByRoom = new ConcurrentHashMap<>();
+
+    public CompiledBookingRules rulesFor(Room room) {
+        String bookingRules = room.getBookingRules();
+        if (room.getId() == null) {
+            return compile(bookingRules);
+        }
+        CompiledBookingRules compiled = compiledByRoom.get(room.getId());
+        if (compiled == null || !compiled.isCompiledFrom(bookingRules)) {
+            compiled = compile(bookingRules);
+            compiledByRoom.put(room.getId(), compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns the first rule the candidate breaks in this room, if any.
+     */
+    public Optional<String> check(Room room, BookingCandidate candidate) {
+        return Optional.ofNullable(rulesFor(room).firstViolation(candidate));
+    }
+
+    /**
+     * Checks many candidates for one room against a single compiled rule set. The result lines up
+     * with {@code candidates}; an entry is {@code null} when that candidate is allowed.
+     */
+    public List<String> checkAll(Room room, List<BookingCandidate> candidates) {
+        CompiledBookingRules rules = rulesFor(room);
+        List<String> violations = new ArrayList<>(candidates.size());
+        if (rules.isEmpty()) {
+            violations.addAll(Collections.nCopies(candidates.size(), null));
+            return violations;
+        }
+        for (BookingCandidate candidate : candidates) {
+            violations.add(rules.firstViolation(candidate));
+        }
+        return violations;
+    }
+
+    CompiledBookingRules compile(String bookingRules) {
+        if (bookingRules == null || bookingRules.isBlank()) {
+            return CompiledBookingRules.NONE;
+        }
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(bookingRules);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unparseable booking rules: {}", bookingRules, e);
+            return new CompiledBookingRules(bookingRules, new BookingRule[0]);
+        }
+        if (root == null || !root.isObject()) {
+            log.warn("Ignoring booking rules that are not a JSON object: {}", bookingRules);
+            return new CompiledBookingRules(bookingRules, new BookingRule[0]);
+        }
+
+        List<BookingRule> rules = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            try {
+                BookingRule rule = compileRule(field.getKey(), field.getValue());
+                if (rule != null) {
+                    rules.add(rule);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Ignoring invalid booking rule {}={}: {}", field.getKey(), field.getValue(), e.getMessage());
+            }
+        }
+        return new CompiledBookingRules(bookingRules, rules.toArray(new BookingRule[0]));
+    }
+
+    private BookingRule compileRule(String key, JsonNode value) {
+        switch (key) {
+            case "maxDurationMinutes": {
+                long max = requirePositive(value);
+                String message = "Bookings for this room cannot be longer than " + max + " minutes";
+                return c -> ChronoUnit.MINUTES.between(c.getStartTime(), c.getEndTime()) > max ? message : null;
+            }
+            case "minDurationMinutes": {
+                long min = requirePositive(value);
+                String message = "Bookings for this room must be at least " + min + " minutes long";
+                return c -> ChronoUnit.MINUTES.between(c.getStartTime(), c.getEndTime()) < min ? message : null;
+            }
+            case "allowedHours": {
+                LocalTime open = LocalTime.parse(value.path("start").asText());
+                LocalTime close = LocalTime.parse(value.path("end").asText());
+                if (!open.isBefore(close)) {
+                    throw new IllegalArgumentException("start must be before end");
+                }
+                int openSecond = open.toSecondOfDay();
+                int closeSecond = close.toSecondOfDay();
+                String message = "This room can only be booked between " + open + " and " + close;
+                return c -> !c.getStartTime().toLocalDate().equals(c.getEndTime().toLocalDate())
+                        || c.getStartTime().toLocalTime().toSecondOfDay() < openSecond
+                        || c.getEndTime().toLocalTime().toSecondOfDay() > closeSecond ? message : null;
+            }
+            case "allowedDays": {
+                EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+                value.forEach(day -> days.add(DayOfWeek.valueOf(day.asText().trim().toUpperCase(Locale.ROOT))));
+                String message = "This room can only be booked on " + days;
+                return c -> !days.contains(c.getStartTime().getDayOfWeek())
+                        || !days.contains(c.getEndTime().getDayOfWeek()) ? message : null;
+            }
+            case "allowedRoles": {
+                EnumSet<User.UserRole> roles = EnumSet.noneOf(User.UserRole.class);
+                value.forEach(role -> roles.add(User.UserRole.valueOf(role.asText().trim().toUpperCase(Locale.ROOT))));
+                String message = "Your role is not allowed to book this room";
+                return c -> c.getBookerRole() != User.UserRole.ADMINISTRATOR
+                        && (c.getBookerRole() == null || !roles.contains(c.getBookerRole())) ? message : null;
+            }
+            case "minLeadTimeMinutes": {
+                long lead = requirePositive(value);
+                String message = "This room must be booked at least " + lead + " minutes in advance";
+                return c -> c.getRequestedAt() != null
+                        && ChronoUnit.MINUTES.between(c.getRequestedAt(), c.getStartTime()) < lead ? message : null;
+            }
+            case "maxParticipants": {
+                int max = (int) requirePositive(value);
+                String message = "This room allows at most " + max + " participants per booking";
+                return c -> c.getNumberOfParticipants() != null && c.getNumberOfParticipants() > max ? message : null;
+            }
+            default:
+                log.warn("Ignoring unknown booking rule: {}", key);
+                return null;
+        }
+    }
+
+    private static long requirePositive(JsonNode value) {
+        if (!value.canConvertToLong() || value.asLong() <= 0) {
+            throw new IllegalArgumentException("expected a positive number");
+        }
+        return value.asLong();
+    }
+}
@@ -0,0 +1,282 @@
+package com.schoolapp.service;
+
+import com.schoolapp.dto.BulkDeactivationResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Deactivates many users at once (graduating cohorts, leavers) with a handful of set-based
+ * statements instead of a load/save/session update per user. Administrators are never
+ * deactivated in bulk. Deactivated users lose their user_sessions tokens, API tokens and HTTP sessions.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkUserDeactivationService {
+
+    private static final int MAX_IDENTIFIERS = 20000;
+    private static final int MAX_REPORTED_UNMATCHED = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionTokenCache sessionTokenCache;
+    private final ApiTokenService apiTokenService;
+    private final UserDirectoryService userDirectoryService;
+    private final SecondLevelCacheSync secondLevelCacheSync;
+
+    /**
+     * Deactivates users by id.
+     */
+    @Transactional
+    public BulkDeactivationResult deactivateByIds(Collection<UUID> userIds) {
+        long started = System.currentTimeMillis();
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(userIds));
+        List<Target> targets = jdbcTemplate.query(
+                "SELECT id, email, role, is_active FROM users WHERE id = ANY(?)",
+                ps -> setArray(ps, 1, "uuid", ids.toArray()), (rs, i) -> toTarget(rs));
+
+        Set<String> found = new HashSet<>();
+        targets.forEach(t -> found.add(t.id().toString()));
+        List<String> unmatched = ids.stream().map(UUID::toString).filter(id -> !found.contains(id)).toList();
+        return deactivate(ids.size(), targets, unmatched, started);
+    }
+
+    /**
+     * Deactivates every active student with an active enrollment in a class of this grade level.
+     */
+    @Transactional
+    public BulkDeactivationResult deactivateByGradeLevel(int gradeLevel) {
+        long started = System.currentTimeMillis();
+        List<Target> targets = jdbcTemplate.query(
+                "SELECT u.id, u.email, u.role, u.is_active FROM users u " +
+                "WHERE u.role = 'STUDENT' AND EXISTS (SELECT 1 FROM class_enrollments e " +
+                "JOIN classes c ON c.id = e.class_id " +
+                "WHERE e.student_id = u.id AND e.is_active = true AND c.grade_level = ?)",
+                (rs, i) -> toTarget(rs), gradeLevel);
+        return deactivate(targets.size(), targets, List.of(), started);
+    }
+
+    /**
+     * Deactivates the users listed in a CSV or plain list, one per row. The identifier is read from
+     * the column headed email, student_id, staff_id or user_id, or from the first column when there
+     * is no header, and matched against that field only (any of them without a header). Rows with
+     * an empty identifier cell, or one that matches nobody, are reported as unmatched.
+     */
+    @Transactional
+    public BulkDeactivationResult deactivateByCsv(Reader csv) throws IOException {
+        long started = System.currentTimeMillis();
+        Upload upload = parseUpload(csv);
+        IdentifierColumn column = upload.column();
+        List<String> identifiers = upload.identifiers();
+
+        List<String> lowered = identifiers.stream().map(id -> id.toLowerCase(Locale.ROOT)).toList();
+        List<UUID> uuids = new ArrayList<>();
+        if (column.matches(IdentifierColumn.USER_ID)) {
+            for (String identifier : identifiers) {
+                try {
+                    uuids.add(UUID.fromString(identifier));
+                } catch (IllegalArgumentException e) {
+                    // Not a user id; matched as email or student/staff ID instead
+                }
+            }
+        }
+        Object[] emails = column.matches(IdentifierColumn.EMAIL) ? lowered.toArray() : new Object[0];
+        Object[] studentIds = column.matches(IdentifierColumn.STUDENT_ID) ? lowered.toArray() : new Object[0];
+        Object[] staffIds = column.matches(IdentifierColumn.STAFF_ID) ? lowered.toArray() : new Object[0];
+
+        List<Target> targets = new ArrayList<>();
+        Set<String> matchedKeys = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT id, email, role, is_active, student_id, staff_id FROM users " +
+                "WHERE id = ANY(?) OR lower(email) = ANY(?) OR lower(student_id) = ANY(?) OR lower(staff_id) = ANY(?)",
+                ps -> {
+                    setArray(ps, 1, "uuid", uuids.toArray());
+                    setArray(ps, 2, "text", emails);
+                    setArray(ps, 3, "text", studentIds);
+                    setArray(ps, 4, "text", staffIds);
+                },
+                rs -> {
+                    targets.add(toTarget(rs));
+                    if (column.matches(IdentifierColumn.USER_ID)) {
+                        matchedKeys.add(rs.getString("id"));
+                    }
+                    if (column.matches(IdentifierColumn.EMAIL)) {
+                        matchedKeys.add(rs.getString("email").toLowerCase(Locale.ROOT));
+                    }
+                    if (column.matches(IdentifierColumn.STUDENT_ID) && rs.getString("student_id") != null) {
+                        matchedKeys.add(rs.getString("student_id").toLowerCase(Locale.ROOT));
+                    }
+                    if (column.matches(IdentifierColumn.STAFF_ID) && rs.getString("staff_id") != null) {
+                        matchedKeys.add(rs.getString("staff_id").toLowerCase(Locale.ROOT));
+                    }
+                });
+
+        List<String> unmatched = new ArrayList<>(upload.emptyRows());
+        identifiers.stream()
+                .filter(id -> !matchedKeys.contains(id.toLowerCase(Locale.ROOT)))
+                .forEach(unmatched::add);
+        return deactivate(identifiers.size() + upload.emptyRows().size(), targets, unmatched, started);
+    }
+
+    private BulkDeactivationResult deactivate(int requested, List<Target> targets, List<String> unmatched, long started) {
+        List<UUID> toDeactivate = new ArrayList<>();
+        int administrators = 0;
+        int alreadyInactive = 0;
+        for (Target target : targets) {
+            if ("ADMINISTRATOR".equals(target.role())) {
+                administrators++;
+            } else if (!target.active()) {
+                alreadyInactive++;
+            } else {
+                toDeactivate.add(target.id());
+            }
+        }
+
+        List<UUID> deactivatedIds = List.of();
+        List<String> emails = List.of();
+        int sessions = 0;
+        int signedOut = 0;
+        if (!toDeactivate.isEmpty()) {
+            Object[] idArray = toDeactivate.toArray();
+            List<String[]> rows = jdbcTemplate.query(
+                    "UPDATE users SET is_active = false WHERE id = ANY(?) AND is_active = true RETURNING id, email",
+                    ps -> setArray(ps, 1, "uuid", idArray),
+                    (rs, i) -> new String[]{rs.getString("id"), rs.getString("email")});
+            deactivatedIds = rows.stream().map(r -> UUID.fromString(r[0])).toList();
+            emails = rows.stream().map(r -> r[1]).toList();
+            alreadyInactive += toDeactivate.size() - rows.size();
+
+            Object[] deactivatedArray = deactivatedIds.toArray();
+            sessions = jdbcTemplate.update(
+                    "UPDATE user_sessions SET is_active = false WHERE user_id = ANY(?) AND is_active = true",
+                    ps -> setArray(ps, 1, "uuid", deactivatedArray));
+            Object[] emailArray = emails.toArray();
+            signedOut = jdbcTemplate.update(
+                    "DELETE FROM spring_session WHERE principal_name = ANY(?)",
+                    ps -> setArray(ps, 1, "text", emailArray));
+
+            sessionTokenCache.evictUsers(deactivatedIds);
+            secondLevelCacheSync.evictUsers(deactivatedIds);
+            apiTokenService.revokeUsers(deactivatedIds);
+            userDirectoryService.invalidateCounts();
+        }
+
+        BulkDeactivationResult result = BulkDeactivationResult.builder()
+                .requested(requested)
+                .matched(targets.size())
+                .deactivated(deactivatedIds.size())
+                .alreadyInactive(alreadyInactive)
+                .skippedAdministrators(administrators)
+                .sessionsDeactivated(sessions)
+                .signedOut(signedOut)
+                .unmatched(unmatched.size() > MAX_REPORTED_UNMATCHED
+                        ? List.copyOf(unmatched.subList(0, MAX_REPORTED_UNMATCHED)) : List.copyOf(unmatched))
+                .elapsedMillis(System.currentTimeMillis() - started)
+                .build();
+        log.info("Bulk deactivation: {}", result.getSummary());
+        return result;
+    }
+
+    private static Upload parseUpload(Reader csv) throws IOException {
+        BufferedReader reader = new BufferedReader(csv);
+        IdentifierColumn column = null;
+        int columnIndex = 0;
+        Set<String> identifiers = new LinkedHashSet<>();
+        List<String> emptyRows = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] cells = line.split("[,;\\t]", -1);
+            if (column == null) {
+                // The first row decides the column: a header names it, otherwise it is the first one
+                column = IdentifierColumn.ANY;
+                boolean header = false;
+                for (int i = 0; i < cells.length; i++) {
+                    String name = unquote(cells[i]).toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+                    IdentifierColumn named = IdentifierColumn.forHeader(name);
+                    header |= named != null || name.equals("name") || name.equals("firstname") || name.equals("lastname");
+                    if (named != null && column == IdentifierColumn.ANY) {
+                        column = named;
+                        columnIndex = i;
+                    }
+                }
+                if (header) {
+                    if (column == IdentifierColumn.ANY) {
+                        throw new RuntimeException("The header has no email, student_id or staff_id column");
+                    }
+                    continue;
+                }
+            }
+
+            String value = columnIndex < cells.length ? unquote(cells[columnIndex]) : "";
+            if (value.isEmpty()) {
+                emptyRows.add("line " + lineNumber + " (no identifier)");
+                continue;
+            }
+            identifiers.add(value);
+            if (identifiers.size() > MAX_IDENTIFIERS) {
+                throw new RuntimeException("Too many entries; at most " + MAX_IDENTIFIERS + " users per upload");
+            }
+        }
+        return new Upload(column != null ? column : IdentifierColumn.ANY, List.copyOf(identifiers), emptyRows);
+    }
+
+    private static String unquote(String cell) {
+        String value = cell.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    private static Target toTarget(ResultSet rs) throws SQLException {
+        return new Target(rs.getObject("id", UUID.class), rs.getString("role"), rs.getBoolean("is_active"));
+    }
+
+    private static void setArray(PreparedStatement ps, int index, String type, Object[] values) throws SQLException {
+        Array array = ps.getConnection().createArrayOf(type, values);
+        ps.setArray(index, array);
+    }
+
+    private record Target(UUID id, String role, boolean active) {
+    }
+
+    private record Upload(IdentifierColumn column, List<String> identifiers, List<String> emptyRows) {
+    }
+
+    /**
+     * Which user field an upload's identifiers are matched against.
+     */
+    private enum IdentifierColumn {
+        ANY, USER_ID, EMAIL, STUDENT_ID, STAFF_ID;
+
+        boolean matches(IdentifierColumn field) {
+            return this == ANY || this == field;
+        }
+
+        static IdentifierColumn forHeader(String name) {
+            return switch (name) {
+                case "email", "emailaddress" -> EMAIL;
+                case "studentid" -> STUDENT_ID;
+                case "staffid" -> STAFF_ID;
+                case "id", "userid" -> USER_ID;
+                default -> null;
+            };
+        }
+    }
+}
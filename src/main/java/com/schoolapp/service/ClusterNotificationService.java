@@ -0,0 +1,148 @@
+package com.schoolapp.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Lightweight cross-instance messages over PostgreSQL LISTEN/NOTIFY, used to invalidate
+ * in-process caches on every instance. Messages published inside a transaction are only
+ * delivered once it commits. Delivery is best effort: after the listener reconnects, every
+ * handler receives {@link #RESYNC} because anything sent in the meantime was lost.
+ *
+ * The listener holds one pooled connection for as long as the application runs.
+ */
+@Service
+@Slf4j
+public class ClusterNotificationService {
+
+    public static final String RESYNC = "*";
+
+    private static final String CHANNEL = "schoolapp_cluster";
+    private static final int POLL_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public ClusterNotificationService(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registers a handler for messages other instances publish on {@code topic}.
+     */
+    public void subscribe(String topic, Consumer<String> handler) {
+        handlers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Sends {@code message} to the {@code topic} handlers of every other instance. The publishing
+     * instance is expected to have applied the change locally already.
+     */
+    public void publish(String topic, String message) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> { },
+                    CHANNEL, instanceId + "|" + topic + "|" + message);
+        } catch (Exception e) {
+            log.warn("Could not publish cluster notification {}:{}: {}", topic, message, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "cluster-notifications");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for cluster notifications on {}", CHANNEL);
+                resyncAll();
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster notification listener lost its connection: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length < 3 || parts[0].equals(instanceId)) {
+            return;
+        }
+        for (Consumer<String> handler : handlers.getOrDefault(parts[1], List.of())) {
+            deliver(parts[1], handler, parts[2]);
+        }
+    }
+
+    private void resyncAll() {
+        handlers.forEach((topic, topicHandlers) -> topicHandlers.forEach(handler -> deliver(topic, handler, RESYNC)));
+    }
+
+    private void deliver(String topic, Consumer<String> handler, String message) {
+        try {
+            handler.accept(message);
+        } catch (Exception e) {
+            log.error("Cluster notification handler for {} failed: {}", topic, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.schoolapp.service;
+
+import com.schoolapp.dto.BookingCandidate;
+
+import java.util.Objects;
+
+/**
+ * Immutable, ready-to-evaluate form of one room's booking_rules JSON. Remembers the JSON it
+ * was compiled from so a cached copy can tell when the room's rules have since changed.
+ */
+public final class CompiledBookingRules {
+
+    static final CompiledBookingRules NONE = new CompiledBookingRules(null, new BookingRule[0]);
+
+    private final String source;
+    private final BookingRule[] rules;
+
+    CompiledBookingRules(String source, BookingRule[] rules) {
+        this.source = source;
+        this.rules = rules;
+    }
+
+    public boolean isCompiledFrom(String bookingRules) {
+        return Objects.equals(source, bookingRules);
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * Returns the first rule violation, or {@code null} if the candidate is allowed.
+     */
+    public String firstViolation(BookingCandidate candidate) {
+        for (BookingRule rule : rules) {
+            String violation = rule.check(candidate);
+            if (violation != null) {
+                return violation;
+            }
+        }
+        return null;
+    }
+}
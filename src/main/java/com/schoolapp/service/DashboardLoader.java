@@ -0,0 +1,173 @@
+package com.schoolapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs a page's independent reads in parallel so its latency is close to the slowest read rather
+ * than their sum. Each read gets its own read-only transaction and the caller's security context.
+ * Reads still running at the per-page deadline, or that fail, are replaced by their fallback and
+ * reported so the page can say it is showing partial data.
+ *
+ * Reads run on a bounded pool, at most {@code app.dashboard.loader.max-concurrency} at once. Each
+ * holds a database connection, so by default the limit is the Hikari pool size minus
+ * {@code app.dashboard.loader.reserved-connections}, which leaves room for the LISTEN connection of
+ * {@link ClusterNotificationService} and for ordinary requests. Results are detached entities, so a
+ * read must fetch everything the view needs.
+ */
+@Service
+@Slf4j
+public class DashboardLoader implements DisposableBean {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long deadlineNanos;
+
+    public DashboardLoader(PlatformTransactionManager transactionManager,
+                           @Value("${app.dashboard.loader.max-concurrency:0}") int maxConcurrency,
+                           @Value("${app.dashboard.loader.reserved-connections:4}") int reservedConnections,
+                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                           @Value("${app.dashboard.loader.deadline:2s}") Duration deadline) {
+        int available = Math.max(1, connectionPoolSize - reservedConnections);
+        if (maxConcurrency <= 0) {
+            maxConcurrency = available;
+        } else if (maxConcurrency > available) {
+            log.warn("app.dashboard.loader.max-concurrency={} exceeds the {} connections left for dashboards; using {}",
+                    maxConcurrency, available, available);
+            maxConcurrency = available;
+        }
+        this.deadlineNanos = deadline.toNanos();
+        this.permits = new Semaphore(maxConcurrency);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Lets the database stop a query nobody is waiting for any more
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, deadline.plusSeconds(1).toSeconds()));
+        this.executor = createExecutor(maxConcurrency);
+    }
+
+    public Batch begin() {
+        return new Batch(System.nanoTime() + deadlineNanos);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static ExecutorService createExecutor(int maxConcurrency) {
+        return new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConcurrency * 4), new CustomizableThreadFactory("dashboard-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * The reads of one page view.
+     */
+    public final class Batch {
+
+        private final long deadline;
+        private final List<Section<?>> sections = new ArrayList<>();
+
+        private Batch(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public <T> Section<T> load(String name, Supplier<T> read, T fallback) {
+            Callable<T> task = new DelegatingSecurityContextCallable<>(() -> {
+                if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    throw new TimeoutException("No capacity before the deadline");
+                }
+                try {
+                    return readOnlyTransaction.execute(status -> read.get());
+                } finally {
+                    permits.release();
+                }
+            });
+
+            Future<T> future;
+            try {
+                future = executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                // Saturated: run it here, as the page did before
+                FutureTask<T> inline = new FutureTask<>(task);
+                inline.run();
+                future = inline;
+            }
+            Section<T> section = new Section<>(name, future, fallback);
+            sections.add(section);
+            return section;
+        }
+
+        /**
+         * Waits for every section until the deadline and returns the names of the ones that fell
+         * back to partial data.
+         */
+        public List<String> await() {
+            List<String> degraded = new ArrayList<>();
+            for (Section<?> section : sections) {
+                if (!section.complete(deadline)) {
+                    degraded.add(section.name);
+                }
+            }
+            return degraded;
+        }
+    }
+
+    public static final class Section<T> {
+
+        private final String name;
+        private final Future<T> future;
+        private final T fallback;
+        private T value;
+        private boolean completed;
+        private boolean loaded;
+
+        private Section(String name, Future<T> future, T fallback) {
+            this.name = name;
+            this.future = future;
+            this.fallback = fallback;
+        }
+
+        /**
+         * The loaded value, or the fallback if it failed or missed the deadline.
+         */
+        public T get() {
+            return value;
+        }
+
+        private boolean complete(long deadline) {
+            if (completed) {
+                return loaded;
+            }
+            completed = true;
+            value = fallback;
+            try {
+                value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                loaded = true;
+                return true;
+            } catch (TimeoutException e) {
+                // Not interrupted: a JDBC call should finish and hand its connection back cleanly
+                future.cancel(false);
+                log.warn("Dashboard section '{}' missed its deadline", name);
+            } catch (ExecutionException e) {
+                log.warn("Dashboard section '{}' failed: {}", name, e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.schoolapp.service;
+
+import com.schoolapp.dto.DashboardStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Admin dashboard numbers, computed by one aggregate statement and served from an immutable
+ * snapshot. A background refresh keeps the snapshot a few seconds fresh while anyone is looking at
+ * the dashboard and stops when nobody has for {@code idle-after}; the next view then reloads it.
+ *
+ * The all-time attendance and booking totals are the planner's row estimates (pg_class.reltuples,
+ * kept current by autovacuum) rather than COUNT(*), which would scan both tables on every refresh.
+ */
+@Service
+@Slf4j
+public class DashboardStatsService {
+
+    // A table never analyzed yet reports -1 and is small enough to count
+    private static final String ESTIMATED_ROWS = "(SELECT CASE WHEN c.reltuples < 0 THEN (SELECT COUNT(*) FROM %1$s) " +
+            "ELSE c.reltuples::bigint END FROM pg_class c WHERE c.oid = '%1$s'::regclass)";
+
+    private static final String EXACT_ROWS = "(SELECT COUNT(*) FROM %1$s)";
+
+    // %1$s is ESTIMATED_ROWS or EXACT_ROWS, applied to the two large tables
+    private static final String STATS_SQL =
+            "SELECT u.total_users, u.active_students, u.active_teachers, u.active_admins, " +
+            "(SELECT COUNT(*) FROM classes) AS total_classes, " +
+            "(SELECT COUNT(*) FROM rooms) AS total_rooms, " +
+            "%1$s AS total_attendance, %2$s AS total_bookings, " +
+            "t.attendance_today, t.present_today " +
+            "FROM (SELECT COUNT(*) AS total_users, " +
+            "COUNT(*) FILTER (WHERE is_active AND role = 'STUDENT') AS active_students, " +
+            "COUNT(*) FILTER (WHERE is_active AND role = 'TEACHER') AS active_teachers, " +
+            "COUNT(*) FILTER (WHERE is_active AND role = 'ADMINISTRATOR') AS active_admins " +
+            "FROM users) u, " +
+            "(SELECT COUNT(*) AS attendance_today, COUNT(*) FILTER (WHERE status = 'PRESENT') AS present_today " +
+            "FROM attendance_records WHERE date = ?) t";
+    private static final String ESTIMATED_STATS_SQL = STATS_SQL.formatted(
+            ESTIMATED_ROWS.formatted("attendance_records"), ESTIMATED_ROWS.formatted("room_bookings"));
+    private static final String EXACT_STATS_SQL = STATS_SQL.formatted(
+            EXACT_ROWS.formatted("attendance_records"), EXACT_ROWS.formatted("room_bookings"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long idleAfterNanos;
+    private final long maxAgeNanos;
+    private final long refreshNanos;
+
+    private volatile DashboardStats snapshot;
+    private volatile long snapshotLoadedAt;
+    private volatile long lastReadAt;
+
+    public DashboardStatsService(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.dashboard.idle-after:5m}") Duration idleAfter,
+                                 @Value("${app.dashboard.max-age:30s}") Duration maxAge,
+                                 @Value("${app.dashboard.refresh-ms:5000}") long refreshMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshNanos = Duration.ofMillis(refreshMillis).toNanos();
+        this.idleAfterNanos = idleAfter.toNanos();
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    public DashboardStats getSnapshot() {
+        long now = System.nanoTime();
+        lastReadAt = now;
+        DashboardStats current = snapshot;
+        if (current == null || now - snapshotLoadedAt > maxAgeNanos) {
+            current = refreshIfOlderThan(maxAgeNanos);
+        }
+        return current;
+    }
+
+    /**
+     * The same numbers with exact totals, read now and not cached; for pages that show few
+     * numbers and are rarely opened.
+     */
+    public DashboardStats getExactStats() {
+        return query(EXACT_STATS_SQL, false);
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.refresh-ms:5000}")
+    public void refreshIfWatched() {
+        if (snapshot != null && System.nanoTime() - lastReadAt < idleAfterNanos) {
+            try {
+                refreshIfOlderThan(refreshNanos / 2);
+            } catch (Exception e) {
+                log.warn("Could not refresh dashboard statistics: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reloads the snapshot unless another caller did so within {@code maxAgeNanos} while this one
+     * waited for the lock.
+     */
+    private synchronized DashboardStats refreshIfOlderThan(long maxAgeNanos) {
+        DashboardStats current = snapshot;
+        if (current != null && System.nanoTime() - snapshotLoadedAt <= maxAgeNanos) {
+            return current;
+        }
+        DashboardStats stats = query(ESTIMATED_STATS_SQL, true);
+        snapshot = stats;
+        snapshotLoadedAt = System.nanoTime();
+        return stats;
+    }
+
+    private DashboardStats query(String sql, boolean totalsEstimated) {
+        return jdbcTemplate.queryForObject(sql, (rs, i) -> DashboardStats.builder()
+                .totalUsers(rs.getLong("total_users"))
+                .activeStudents(rs.getLong("active_students"))
+                .activeTeachers(rs.getLong("active_teachers"))
+                .activeAdmins(rs.getLong("active_admins"))
+                .totalClasses(rs.getLong("total_classes"))
+                .totalRooms(rs.getLong("total_rooms"))
+                .totalAttendanceRecords(rs.getLong("total_attendance"))
+                .totalBookings(rs.getLong("total_bookings"))
+                .totalsEstimated(totalsEstimated)
+                .attendanceToday(rs.getLong("attendance_today"))
+                .presentToday(rs.getLong("present_today"))
+                .generatedAt(LocalDateTime.now())
+                .build(), Date.valueOf(LocalDate.now()));
+    }
+}
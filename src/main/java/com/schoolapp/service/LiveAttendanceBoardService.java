@@ -0,0 +1,454 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.dto.AttendanceBoard;
+import com.schoolapp.dto.AttendanceBoardDelta;
+import com.schoolapp.dto.ClassAttendanceCount;
+import com.schoolapp.dto.ClassAttendanceTally;
+import com.schoolapp.repository.AttendanceRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Live attendance board for administrators: today's present and absent counts per class, pushed
+ * over Server-Sent Events as teachers mark attendance.
+ *
+ * The counts are loaded with one aggregate query when the first admin connects and then kept
+ * current from the deltas in {@link AttendanceChangedEvent}, here and, through
+ * {@link ClusterNotificationService}, on every other instance. A write costs no query: one counter
+ * update and one queued event per subscriber. While anyone is watching the counts are reloaded
+ * every {@code app.attendance-board.full-refresh-ms} to correct drift, e.g. from two teachers
+ * correcting the same record at once; with nobody watching nothing is kept.
+ *
+ * The aggregate query runs outside the board's lock, so writers applying deltas never wait for it;
+ * deltas that arrive while it runs are replayed onto the fresh counts before they are swapped in.
+ *
+ * Each subscriber has a bounded queue drained on a small push pool. A client too slow to keep up
+ * loses its queued deltas and is sent a fresh snapshot instead once it catches up; one whose send
+ * has been stuck for {@code app.attendance-board.send-timeout-ms} is dropped and its stream closed,
+ * so a stalled connection cannot hold the pool. Events carry the board version, so a client can
+ * ignore a delta its snapshot already includes.
+ */
+@Service
+@Slf4j
+public class LiveAttendanceBoardService implements DisposableBean {
+
+    private static final String TOPIC = "attendance-board";
+    private static final long STREAM_TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
+
+    private final AttendanceRecordRepository attendanceRepository;
+    private final ClusterNotificationService clusterNotifications;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService pushExecutor;
+    private final int maxPending;
+    private final long sendTimeoutNanos;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Held while the aggregate query runs so only one load is in flight; taken before "this", never after
+    private final Object loadLock = new Object();
+
+    // Guarded by "this"; day is null while nobody is watching
+    private LocalDate day;
+    // Deltas applied while a load's query runs; null when no load is in flight
+    private List<BoardChange> replay;
+    private final Map<UUID, Tally> tallies = new LinkedHashMap<>();
+    private int present;
+    private int absent;
+    private long version;
+    private AttendanceBoard snapshot;
+
+    public LiveAttendanceBoardService(AttendanceRecordRepository attendanceRepository,
+                                      ClusterNotificationService clusterNotifications,
+                                      ObjectMapper objectMapper,
+                                      @Value("${app.attendance-board.push-threads:4}") int pushThreads,
+                                      @Value("${app.attendance-board.max-pending:64}") int maxPending,
+                                      @Value("${app.attendance-board.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.attendanceRepository = attendanceRepository;
+        this.clusterNotifications = clusterNotifications;
+        this.objectMapper = objectMapper;
+        this.maxPending = maxPending;
+        this.sendTimeoutNanos = Duration.ofMillis(sendTimeoutMillis).toNanos();
+        this.pushExecutor = Executors.newFixedThreadPool(pushThreads, new CustomizableThreadFactory("attendance-board-"));
+
+        clusterNotifications.subscribe(TOPIC, this::onMessage);
+    }
+
+    /**
+     * Opens a stream that starts with a {@code snapshot} event and continues with a {@code class}
+     * event per change.
+     */
+    public SseEmitter subscribe() {
+        // Load on the request thread so a failing query fails the request
+        snapshot();
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        subscriber.resync();
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.attendance-board.full-refresh-ms:300000}", initialDelayString = "${app.attendance-board.full-refresh-ms:300000}")
+    public void refresh() {
+        synchronized (this) {
+            if (subscribers.isEmpty()) {
+                day = null;
+                tallies.clear();
+                snapshot = null;
+                return;
+            }
+        }
+        load();
+        subscribers.forEach(Subscriber::resync);
+    }
+
+    /**
+     * Drops subscribers whose current send has been blocked longer than the send timeout.
+     */
+    @Scheduled(fixedDelayString = "${app.attendance-board.send-timeout-ms:10000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isStalled(now)) {
+                log.debug("Closing an attendance board stream that stopped reading");
+                subscriber.abort();
+            }
+        }
+    }
+
+    // NOTIFY is transactional: other instances hear about the change only if it commits
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publish(AttendanceChangedEvent event) {
+        if (event.getPresentDelta() != 0 || event.getAbsentDelta() != 0) {
+            clusterNotifications.publish(TOPIC, event.getClassId() + ";" + event.getDate() + ";"
+                    + event.getPresentDelta() + ";" + event.getAbsentDelta());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        apply(event.getClassId(), event.getDate(), event.getPresentDelta(), event.getAbsentDelta());
+    }
+
+    @Override
+    public void destroy() {
+        pushExecutor.shutdownNow();
+    }
+
+    private void apply(UUID classId, LocalDate date, int presentDelta, int absentDelta) {
+        if (presentDelta == 0 && absentDelta == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (replay != null) {
+                replay.add(new BoardChange(classId, date, presentDelta, absentDelta));
+            }
+            if (day == null || !day.equals(date)) {
+                return;
+            }
+            Tally tally = tallies.get(classId);
+            if (tally == null) {
+                // A class added since the board was loaded; the reload will include this write
+                execute(this::refresh);
+                return;
+            }
+            tally.present += presentDelta;
+            tally.absent += absentDelta;
+            present += presentDelta;
+            absent += absentDelta;
+            version++;
+            snapshot = null;
+
+            // Rendered once for every subscriber and queued in version order; sending happens on the push pool
+            String json = toJson(new AttendanceBoardDelta(version, day, tally.toDto(), presentDelta, absentDelta));
+            if (json != null) {
+                PendingDelta pending = new PendingDelta(version, json);
+                subscribers.forEach(subscriber -> subscriber.offer(pending));
+            }
+        }
+    }
+
+    /**
+     * Reloads the counts. The query runs without holding "this"; deltas applied meanwhile are
+     * recorded and replayed onto the result, since the write they report most likely committed
+     * after the query's snapshot was taken. Any remaining drift is corrected by the next refresh.
+     */
+    private void load() {
+        synchronized (loadLock) {
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            LocalDate today = LocalDate.now();
+            List<ClassAttendanceCount> counts;
+            try {
+                counts = attendanceRepository.countByClassForDate(today);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    replay = null;
+                }
+                throw e;
+            }
+            Map<UUID, Tally> fresh = new LinkedHashMap<>();
+            for (ClassAttendanceCount count : counts) {
+                fresh.put(count.getClassId(), new Tally(count.getClassId(), count.getClassName(), count.getTeacherName(),
+                        (int) count.getPresent(), (int) count.getAbsent()));
+            }
+
+            synchronized (this) {
+                for (BoardChange change : replay) {
+                    Tally tally = fresh.get(change.classId());
+                    if (tally != null && change.date().equals(today)) {
+                        tally.present += change.presentDelta();
+                        tally.absent += change.absentDelta();
+                    }
+                }
+                replay = null;
+                tallies.clear();
+                tallies.putAll(fresh);
+                present = 0;
+                absent = 0;
+                for (Tally tally : fresh.values()) {
+                    present += tally.present;
+                    absent += tally.absent;
+                }
+                day = today;
+                version++;
+                snapshot = null;
+            }
+        }
+    }
+
+    private AttendanceBoard snapshot() {
+        while (true) {
+            synchronized (this) {
+                if (day != null) {
+                    return currentSnapshot();
+                }
+            }
+            load();
+        }
+    }
+
+    // Caller holds "this"
+    private AttendanceBoard currentSnapshot() {
+        if (snapshot == null) {
+            List<ClassAttendanceTally> classes = new ArrayList<>(tallies.size());
+            for (Tally tally : tallies.values()) {
+                classes.add(tally.toDto());
+            }
+            AttendanceBoard draft = new AttendanceBoard(version, day, present, absent, List.copyOf(classes), null);
+            String json = toJson(draft);
+            snapshot = draft.withJson(json != null ? json : "{\"classes\":[]}");
+        }
+        return snapshot;
+    }
+
+    private void onMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            execute(this::refresh);
+            return;
+        }
+        String[] parts = message.split(";");
+        if (parts.length != 4) {
+            return;
+        }
+        apply(UUID.fromString(parts[0]), LocalDate.parse(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize attendance board", e);
+            return null;
+        }
+    }
+
+    private boolean execute(Runnable task) {
+        try {
+            pushExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            return false;
+        }
+    }
+
+    private static final class Tally {
+
+        private final UUID classId;
+        private final String className;
+        private final String teacherName;
+        private int present;
+        private int absent;
+
+        private Tally(UUID classId, String className, String teacherName, int present, int absent) {
+            this.classId = classId;
+            this.className = className;
+            this.teacherName = teacherName;
+            this.present = present;
+            this.absent = absent;
+        }
+
+        private ClassAttendanceTally toDto() {
+            return new ClassAttendanceTally(classId, className, teacherName, present, absent);
+        }
+    }
+
+    private record PendingDelta(long version, String json) {
+    }
+
+    private record BoardChange(UUID classId, LocalDate date, int presentDelta, int absentDelta) {
+    }
+
+    /**
+     * One connected admin. At most one drain task per subscriber is queued or running, so a
+     * stalled client ties up one push thread and at most {@code maxPending} deltas, and only until
+     * {@link #dropStalledSubscribers()} closes it.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        // Guarded by "this"
+        private final Deque<PendingDelta> pending = new ArrayDeque<>();
+        private boolean snapshotDue;
+        private boolean draining;
+        private boolean closed;
+        // System.nanoTime() when the send in progress started, 0 when not sending
+        private volatile long sendingSince;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(PendingDelta delta) {
+            synchronized (this) {
+                if (closed || snapshotDue) {
+                    // A snapshot is due anyway
+                    return;
+                }
+                if (pending.size() >= maxPending) {
+                    // Too slow to keep up: skip ahead to a fresh snapshot
+                    pending.clear();
+                    snapshotDue = true;
+                } else {
+                    pending.add(delta);
+                }
+                if (!startDraining()) {
+                    return;
+                }
+            }
+            if (!execute(this::drain)) {
+                close();
+            }
+        }
+
+        void resync() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                pending.clear();
+                snapshotDue = true;
+                if (!startDraining()) {
+                    return;
+                }
+            }
+            if (!execute(this::drain)) {
+                close();
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            subscribers.remove(this);
+        }
+
+        boolean isStalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeoutNanos;
+        }
+
+        void abort() {
+            close();
+            // Ends the response, which fails the blocked write and frees its push thread
+            emitter.completeWithError(new IOException("Attendance board client stopped reading"));
+        }
+
+        private boolean startDraining() {
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                boolean sendSnapshot;
+                PendingDelta next;
+                synchronized (this) {
+                    sendSnapshot = snapshotDue && !closed;
+                    snapshotDue = false;
+                    next = sendSnapshot || closed ? null : pending.poll();
+                    if (!sendSnapshot && next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    if (sendSnapshot) {
+                        AttendanceBoard board = snapshot();
+                        send(event("snapshot", board.getVersion(), board.getJson()));
+                    } else {
+                        send(event("class", next.version(), next.json()));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                } catch (RuntimeException e) {
+                    log.warn("Could not load the attendance board: {}", e.getMessage());
+                    close();
+                    emitter.complete();
+                }
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+
+        private SseEmitter.SseEventBuilder event(String name, long eventVersion, String json) {
+            return SseEmitter.event().name(name).id(Long.toString(eventVersion)).data(json);
+        }
+    }
+}
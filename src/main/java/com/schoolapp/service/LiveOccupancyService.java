@@ -0,0 +1,338 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.dto.OccupancyBoard;
+import com.schoolapp.dto.OccupancySlot;
+import com.schoolapp.dto.RoomOccupancy;
+import com.schoolapp.model.Room;
+import com.schoolapp.model.RoomBooking;
+import com.schoolapp.repository.RoomBookingRepository;
+import com.schoolapp.repository.RoomRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory "what's happening now" board: each active room's current and next booking.
+ *
+ * The board is rebuilt from memory by a tick scheduled at the next booking boundary, and a
+ * room's schedule is reloaded from the database when one of its bookings changes, on this instance
+ * or (through {@link ClusterNotificationService}) on another. Queries run without the lock; only
+ * the swap of their result holds it. Readers only ever see the prebuilt {@link OccupancyBoard},
+ * so polling and streaming cost no queries.
+ * Pushes go out on their own thread, not the shared scheduler, and a periodic keep-alive comment
+ * finds stream clients that went away without closing.
+ */
+@Service
+@Slf4j
+public class LiveOccupancyService implements DisposableBean {
+
+    private static final Duration HORIZON = Duration.ofHours(36);
+    private static final long STREAM_TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
+    private static final String TOPIC = "occupancy";
+    private static final int ROOMS_PER_MESSAGE = 150;
+
+    private final RoomBookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+    private final TaskScheduler taskScheduler;
+    private final ObjectMapper objectMapper;
+    private final ClusterNotificationService clusterNotifications;
+
+    private final ExecutorService pushExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("occupancy-push-"));
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    // Numbers loads in the order their queries start, so an older result never replaces a newer one
+    private final AtomicLong loadSequence = new AtomicLong();
+
+    // Guarded by "this"
+    private List<Room> rooms = List.of();
+    private final Map<UUID, List<OccupancySlot>> scheduleByRoom = new HashMap<>();
+    private final Map<UUID, Long> loadedBy = new HashMap<>();
+    private long fullyLoadedBy;
+    private ScheduledFuture<?> nextTick;
+    private long version;
+
+    private volatile OccupancyBoard board = new OccupancyBoard(0, LocalDateTime.now(), 0, List.of(), "{\"rooms\":[]}");
+
+    public LiveOccupancyService(RoomBookingRepository bookingRepository,
+                                RoomRepository roomRepository,
+                                TaskScheduler taskScheduler,
+                                ObjectMapper objectMapper,
+                                ClusterNotificationService clusterNotifications) {
+        this.bookingRepository = bookingRepository;
+        this.roomRepository = roomRepository;
+        this.taskScheduler = taskScheduler;
+        this.objectMapper = objectMapper;
+        this.clusterNotifications = clusterNotifications;
+
+        clusterNotifications.subscribe(TOPIC, this::onMessage);
+    }
+
+    public OccupancyBoard getBoard() {
+        return board;
+    }
+
+    public int getOccupiedRoomCount() {
+        return board.getOccupiedCount();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        send(emitter, board);
+        return emitter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.occupancy.full-refresh-ms:300000}", initialDelayString = "${app.occupancy.full-refresh-ms:300000}")
+    public void reloadAll() {
+        long sequence = loadSequence.incrementAndGet();
+        LocalDateTime now = LocalDateTime.now();
+        List<Room> activeRooms = roomRepository.findActiveRooms();
+        Map<UUID, List<OccupancySlot>> loaded = new HashMap<>();
+        for (RoomBooking booking : bookingRepository.findOccupancyWindow(now, now.plus(HORIZON))) {
+            loaded.computeIfAbsent(booking.getRoom().getId(), id -> new ArrayList<>()).add(toSlot(booking));
+        }
+
+        synchronized (this) {
+            if (fullyLoadedBy > sequence) {
+                return;
+            }
+            fullyLoadedBy = sequence;
+            rooms = activeRooms;
+            // Rooms reloaded on their own since this query started keep that newer schedule
+            Map<UUID, List<OccupancySlot>> newer = new HashMap<>();
+            loadedBy.forEach((roomId, loadedSequence) -> {
+                if (loadedSequence > sequence) {
+                    newer.put(roomId, scheduleByRoom.get(roomId));
+                }
+            });
+            scheduleByRoom.clear();
+            scheduleByRoom.putAll(loaded);
+            scheduleByRoom.putAll(newer);
+            loadedBy.keySet().retainAll(newer.keySet());
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.occupancy.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            push(() -> subscribers.forEach(this::sendHeartbeat));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pushExecutor.shutdownNow();
+    }
+
+    // NOTIFY is transactional: other instances hear about the change only if it commits
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publish(RoomBookingChangedEvent event) {
+        publish(changedRooms(event));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publish(RoomBookingsBulkChangedEvent event) {
+        publish(event.getRoomIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(RoomBookingChangedEvent event) {
+        reloadRooms(changedRooms(event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingsBulkChanged(RoomBookingsBulkChangedEvent event) {
+        reloadRooms(event.getRoomIds());
+    }
+
+    public void reloadRooms(Collection<UUID> roomIds) {
+        long sequence = loadSequence.incrementAndGet();
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, List<OccupancySlot>> loaded = new HashMap<>();
+        for (UUID roomId : roomIds) {
+            List<OccupancySlot> slots = new ArrayList<>();
+            for (RoomBooking booking : bookingRepository.findOccupancyWindowForRoom(roomId, now, now.plus(HORIZON))) {
+                slots.add(toSlot(booking));
+            }
+            loaded.put(roomId, slots);
+        }
+
+        synchronized (this) {
+            loaded.forEach((roomId, slots) -> {
+                if (Math.max(loadedBy.getOrDefault(roomId, 0L), fullyLoadedBy) < sequence) {
+                    scheduleByRoom.put(roomId, slots);
+                    loadedBy.put(roomId, sequence);
+                }
+            });
+            rebuild();
+        }
+    }
+
+    private synchronized void tick() {
+        rebuild();
+    }
+
+    private void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextBoundary = null;
+        List<RoomOccupancy> occupancy = new ArrayList<>(rooms.size());
+        int occupied = 0;
+
+        for (Room room : rooms) {
+            List<OccupancySlot> slots = scheduleByRoom.computeIfAbsent(room.getId(), id -> new ArrayList<>());
+            slots.removeIf(slot -> !slot.getEndTime().isAfter(now));
+
+            OccupancySlot current = null;
+            OccupancySlot next = null;
+            for (OccupancySlot slot : slots) {
+                if (!slot.getStartTime().isAfter(now)) {
+                    current = slot;
+                } else {
+                    next = slot;
+                    break;
+                }
+            }
+
+            if (current != null) {
+                occupied++;
+                nextBoundary = earliest(nextBoundary, current.getEndTime());
+            }
+            if (next != null) {
+                nextBoundary = earliest(nextBoundary, next.getStartTime());
+            }
+            occupancy.add(new RoomOccupancy(room.getId(), room.getName(), room.getLocation(), current, next));
+        }
+
+        version++;
+        OccupancyBoard draft = new OccupancyBoard(version, now, occupied, List.copyOf(occupancy), null);
+        OccupancyBoard published = draft.withJson(toJson(draft));
+        board = published;
+        scheduleTick(nextBoundary);
+
+        // Push outside the lock so a slow stream client cannot hold up the board
+        if (!subscribers.isEmpty()) {
+            push(() -> subscribers.forEach(emitter -> send(emitter, published)));
+        }
+    }
+
+    private void publish(Collection<UUID> roomIds) {
+        StringJoiner batch = new StringJoiner(",");
+        int inBatch = 0;
+        for (UUID roomId : roomIds) {
+            batch.add(roomId.toString());
+            // NOTIFY payloads are limited to 8000 bytes
+            if (++inBatch == ROOMS_PER_MESSAGE) {
+                clusterNotifications.publish(TOPIC, batch.toString());
+                batch = new StringJoiner(",");
+                inBatch = 0;
+            }
+        }
+        if (inBatch > 0) {
+            clusterNotifications.publish(TOPIC, batch.toString());
+        }
+    }
+
+    // Reloads run on the scheduler, not on the notification listener's thread
+    private void onMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            taskScheduler.schedule(this::reloadAll, Instant.now());
+            return;
+        }
+        List<UUID> roomIds = new ArrayList<>();
+        for (String roomId : message.split(",")) {
+            roomIds.add(UUID.fromString(roomId));
+        }
+        taskScheduler.schedule(() -> reloadRooms(roomIds), Instant.now());
+    }
+
+    private void scheduleTick(LocalDateTime boundary) {
+        if (nextTick != null) {
+            nextTick.cancel(false);
+            nextTick = null;
+        }
+        if (boundary != null) {
+            nextTick = taskScheduler.schedule(this::tick, boundary.atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    private void send(SseEmitter emitter, OccupancyBoard snapshot) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("occupancy")
+                    .id(Long.toString(snapshot.getVersion()))
+                    .data(snapshot.getJson()));
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+        }
+    }
+
+    private void sendHeartbeat(SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+        }
+    }
+
+    private void push(Runnable task) {
+        try {
+            pushExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private String toJson(OccupancyBoard snapshot) {
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize occupancy board", e);
+            return board.getJson();
+        }
+    }
+
+    private static Set<UUID> changedRooms(RoomBookingChangedEvent event) {
+        Set<UUID> roomIds = new HashSet<>();
+        roomIds.add(event.getRoomId());
+        if (event.hasPreviousPlacement()) {
+            roomIds.add(event.getPreviousRoomId());
+        }
+        return roomIds;
+    }
+
+    private static OccupancySlot toSlot(RoomBooking booking) {
+        return new OccupancySlot(booking.getId(), booking.getStartTime(), booking.getEndTime());
+    }
+
+    private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+        return a == null || b.isBefore(a) ? b : a;
+    }
+}
@@ -0,0 +1,177 @@
+package com.schoolapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.schoolapp.model.Class;
+import com.schoolapp.model.Room;
+import com.schoolapp.repository.ClassRepository;
+import com.schoolapp.repository.RoomRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of reference data that changes a few times a term: active rooms, active room
+ * types and each teacher's classes. Entries expire after {@code ttl}; saving a {@link Room},
+ * {@link Class} or {@link com.schoolapp.model.ClassEnrollment} evicts them here once the
+ * transaction commits and on every other instance through {@link ClusterNotificationService}.
+ * Hits and misses are reported as {@code cache.gets} with a {@code cache} tag.
+ *
+ * Values are loaded in their own read-only transaction and shared between requests: the lists
+ * are unmodifiable and the detached entities in them must not be modified. Cached classes have
+ * their teacher and enrollments loaded; cached rooms have no bookings.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final String TOPIC = "reference-data";
+    private static final String ROOMS = "rooms";
+    private static final String CLASSES = "classes";
+    private static final String ACTIVE = "active";
+
+    private final RoomRepository roomRepository;
+    private final ClassRepository classRepository;
+    private final ClusterNotificationService clusterNotifications;
+    private final TransactionTemplate loadTransaction;
+
+    private final Cache<String, List<Room>> activeRooms;
+    private final Cache<String, List<String>> roomTypes;
+    private final Cache<UUID, List<Class>> teacherClasses;
+
+    public ReferenceDataCache(RoomRepository roomRepository,
+                              ClassRepository classRepository,
+                              ClusterNotificationService clusterNotifications,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.cache.reference-data.ttl:10m}") Duration ttl,
+                              @Value("${app.cache.reference-data.max-teachers:2000}") long maxTeachers) {
+        this.roomRepository = roomRepository;
+        this.classRepository = classRepository;
+        this.clusterNotifications = clusterNotifications;
+
+        // Never join the caller's transaction or persistence context: what is cached outlives both
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        loadTransaction.setReadOnly(true);
+
+        this.activeRooms = build(1, ttl);
+        this.roomTypes = build(1, ttl);
+        this.teacherClasses = build(maxTeachers, ttl);
+        CaffeineCacheMetrics.monitor(meterRegistry, activeRooms, "active-rooms");
+        CaffeineCacheMetrics.monitor(meterRegistry, roomTypes, "room-types");
+        CaffeineCacheMetrics.monitor(meterRegistry, teacherClasses, "teacher-classes");
+
+        clusterNotifications.subscribe(TOPIC, this::onMessage);
+    }
+
+    public List<Room> getActiveRooms() {
+        return activeRooms.get(ACTIVE, key -> load(roomRepository::findActiveRooms));
+    }
+
+    public List<String> getActiveRoomTypes() {
+        return roomTypes.get(ACTIVE, key -> load(roomRepository::findActiveRoomTypes));
+    }
+
+    /**
+     * The teacher's classes ordered by name, with teacher and enrollments loaded.
+     */
+    public List<Class> getTeacherClasses(UUID teacherId) {
+        return teacherClasses.get(teacherId, id -> load(() -> classRepository.findByTeacherIdWithEnrollments(id)));
+    }
+
+    /**
+     * Called when a room was saved or removed.
+     */
+    public void roomsChanged() {
+        changed(ROOMS);
+    }
+
+    /**
+     * Called when a class or enrollment was saved or removed. A class can move to another teacher,
+     * so every teacher's entry is dropped; they are cheap to reload.
+     */
+    public void classesChanged() {
+        changed(CLASSES);
+    }
+
+    public void clear() {
+        invalidate(ROOMS);
+        invalidate(CLASSES);
+    }
+
+    private void changed(String what) {
+        invalidate(what);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clusterNotifications.publish(TOPIC, what);
+            return;
+        }
+
+        // Once per transaction, however many entities it saves
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        if (pending.kinds.add(what)) {
+            // NOTIFY is transactional: other instances hear about it only if this commits
+            clusterNotifications.publish(TOPIC, what);
+        }
+    }
+
+    private void invalidate(String what) {
+        if (ROOMS.equals(what)) {
+            activeRooms.invalidateAll();
+            roomTypes.invalidateAll();
+        } else if (CLASSES.equals(what)) {
+            teacherClasses.invalidateAll();
+        }
+    }
+
+    private void onMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            clear();
+        } else {
+            invalidate(message);
+        }
+    }
+
+    private <T> List<T> load(Supplier<List<T>> query) {
+        return loadTransaction.execute(status -> List.copyOf(query.get()));
+    }
+
+    private static <K, V> Cache<K, V> build(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // A concurrent lookup may re-read the old rows before the transaction commits
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Set<String> kinds = new HashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ReferenceDataCache.this);
+            if (status == STATUS_COMMITTED) {
+                kinds.forEach(ReferenceDataCache.this::invalidate);
+            }
+        }
+    }
+}
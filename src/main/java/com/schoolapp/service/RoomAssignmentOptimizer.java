@@ -0,0 +1,554 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.schoolapp.dto.RoomAssignmentPlan;
+import com.schoolapp.dto.SessionAssignment;
+import com.schoolapp.dto.TermGenerationResult;
+import com.schoolapp.model.Class;
+import com.schoolapp.model.ClassSession;
+import com.schoolapp.model.Room;
+import com.schoolapp.repository.ClassEnrollmentRepository;
+import com.schoolapp.repository.ClassRepository;
+import com.schoolapp.repository.ClassSessionRepository;
+import com.schoolapp.repository.RoomRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Assigns timetabled class sessions to rooms so that every class fits and as few seats as possible
+ * are wasted. Sessions on different days, and sessions on the same day whose times never overlap
+ * transitively, cannot conflict, so each such group is searched independently on a fork-join pool.
+ * Each group runs a branch-and-bound search seeded with a greedy solution and stops at a shared
+ * deadline, keeping the best assignment found so far.
+ *
+ * Plans are kept briefly so an admin can preview one and then apply exactly that plan. They live in
+ * this instance's memory only: with several instances, preview and apply must reach the same one
+ * (sticky sessions), otherwise apply reports the plan as expired and the admin previews again.
+ *
+ * Applying a plan rewrites the "room" of the matching entries in each class's schedule JSON, the
+ * source the class_sessions rows are derived from, so later schedule edits keep the new rooms.
+ */
+@Service
+@Slf4j
+public class RoomAssignmentOptimizer {
+
+    // Costs are in "wasted seats"; an unplaced session is worse than any real placement
+    private static final int UNASSIGNED_PENALTY = 10_000;
+    private static final int SUBJECT_AFFINITY_BONUS = 10;
+    private static final int KEEP_CURRENT_ROOM_BONUS = 2;
+    private static final int MAX_KEPT_PLANS = 10;
+    private static final DateTimeFormatter SCHEDULE_TIME = DateTimeFormatter.ofPattern("H:mm[:ss]");
+    // Same names as the iso_day_of_week() SQL function the session trigger uses
+    private static final Map<String, DayOfWeek> DAY_NAMES = Map.ofEntries(
+            Map.entry("monday", DayOfWeek.MONDAY), Map.entry("mon", DayOfWeek.MONDAY), Map.entry("isnin", DayOfWeek.MONDAY),
+            Map.entry("tuesday", DayOfWeek.TUESDAY), Map.entry("tue", DayOfWeek.TUESDAY), Map.entry("selasa", DayOfWeek.TUESDAY),
+            Map.entry("wednesday", DayOfWeek.WEDNESDAY), Map.entry("wed", DayOfWeek.WEDNESDAY), Map.entry("rabu", DayOfWeek.WEDNESDAY),
+            Map.entry("thursday", DayOfWeek.THURSDAY), Map.entry("thu", DayOfWeek.THURSDAY), Map.entry("khamis", DayOfWeek.THURSDAY),
+            Map.entry("friday", DayOfWeek.FRIDAY), Map.entry("fri", DayOfWeek.FRIDAY), Map.entry("jumaat", DayOfWeek.FRIDAY),
+            Map.entry("saturday", DayOfWeek.SATURDAY), Map.entry("sat", DayOfWeek.SATURDAY), Map.entry("sabtu", DayOfWeek.SATURDAY),
+            Map.entry("sunday", DayOfWeek.SUNDAY), Map.entry("sun", DayOfWeek.SUNDAY), Map.entry("ahad", DayOfWeek.SUNDAY));
+    private static final String STALE_PLAN = "The timetable has changed since this plan was made, please preview it again";
+
+    private final ClassSessionRepository classSessionRepository;
+    private final ClassEnrollmentRepository enrollmentRepository;
+    private final RoomRepository roomRepository;
+    private final ClassRepository classRepository;
+    private final ObjectMapper objectMapper;
+    private final TermBookingGenerator termBookingGenerator;
+    private final long budgetMillis;
+    private final ForkJoinPool pool;
+
+    private final Map<UUID, RoomAssignmentPlan> plans = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, RoomAssignmentPlan> eldest) {
+            return size() > MAX_KEPT_PLANS;
+        }
+    });
+
+    public RoomAssignmentOptimizer(ClassSessionRepository classSessionRepository,
+                                   ClassEnrollmentRepository enrollmentRepository,
+                                   RoomRepository roomRepository,
+                                   ClassRepository classRepository,
+                                   ObjectMapper objectMapper,
+                                   TermBookingGenerator termBookingGenerator,
+                                   @Value("${app.timetable.optimizer.budget-ms:2000}") long budgetMillis) {
+        this.classSessionRepository = classSessionRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.roomRepository = roomRepository;
+        this.classRepository = classRepository;
+        this.objectMapper = objectMapper;
+        this.termBookingGenerator = termBookingGenerator;
+        this.budgetMillis = budgetMillis;
+        this.pool = new ForkJoinPool(Math.max(1, Math.min(DayOfWeek.values().length,
+                Runtime.getRuntime().availableProcessors())));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Transactional(readOnly = true)
+    public RoomAssignmentPlan preview() {
+        long started = System.currentTimeMillis();
+
+        List<ClassSession> sessions = classSessionRepository.findAllForPlanning();
+        List<Room> rooms = roomRepository.findActiveRooms();
+        Map<UUID, Long> enrollmentCounts = new HashMap<>();
+        for (Object[] row : enrollmentRepository.countActiveEnrollmentsPerClass()) {
+            enrollmentCounts.put((UUID) row[0], (Long) row[1]);
+        }
+
+        Slot[] slots = new Slot[sessions.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot(i, sessions.get(i), rooms, enrollmentCounts);
+        }
+
+        Map<DayOfWeek, List<Slot>> byDay = new EnumMap<>(DayOfWeek.class);
+        for (Slot slot : slots) {
+            byDay.computeIfAbsent(slot.day, d -> new ArrayList<>()).add(slot);
+        }
+
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        int[] assignment = new int[slots.length];
+        List<DaySearch> days = new ArrayList<>();
+        for (List<Slot> daySlots : byDay.values()) {
+            days.add(new DaySearch(daySlots, deadline, assignment));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(days);
+            }
+        });
+        boolean optimal = days.stream().allMatch(DaySearch::isComplete);
+
+        List<SessionAssignment> result = new ArrayList<>(slots.length);
+        int wasted = 0;
+        int currentWasted = 0;
+        int changed = 0;
+        int unassigned = 0;
+        for (Slot slot : slots) {
+            ClassSession session = slot.session;
+            Room proposed = assignment[slot.index] >= 0 ? rooms.get(assignment[slot.index]) : null;
+            Room current = session.getRoom();
+            int slotWaste = proposed != null ? proposed.getCapacity() - slot.demand : 0;
+            SessionAssignment sa = new SessionAssignment(session.getId(), session.getClass_().getId(),
+                    session.getClass_().getName(), slot.day, session.getStartTime(), session.getEndTime(), slot.demand,
+                    current != null ? current.getId() : null, current != null ? current.getName() : null,
+                    proposed != null ? proposed.getId() : null, proposed != null ? proposed.getName() : null,
+                    slotWaste);
+            result.add(sa);
+            if (proposed == null) {
+                unassigned++;
+            } else {
+                wasted += slotWaste;
+            }
+            if (current != null) {
+                currentWasted += Math.max(0, current.getCapacity() - slot.demand);
+            }
+            if (sa.isChanged()) {
+                changed++;
+            }
+        }
+        result.sort(Comparator.comparing(SessionAssignment::getDay)
+                .thenComparing(SessionAssignment::getStartTime)
+                .thenComparing(SessionAssignment::getClassName));
+
+        RoomAssignmentPlan plan = RoomAssignmentPlan.builder()
+                .planId(UUID.randomUUID())
+                .generatedAt(LocalDateTime.now())
+                .assignments(List.copyOf(result))
+                .totalWastedSeats(wasted)
+                .currentWastedSeats(currentWasted)
+                .changedCount(changed)
+                .unassignedCount(unassigned)
+                .optimal(optimal)
+                .elapsedMillis(System.currentTimeMillis() - started)
+                .build();
+        plans.put(plan.getPlanId(), plan);
+        log.info("Room assignment plan {}: {} sessions, {} wasted seats (currently {}), {} unassigned, optimal={}, {} ms",
+                plan.getPlanId(), slots.length, wasted, currentWasted, unassigned, optimal, plan.getElapsedMillis());
+        return plan;
+    }
+
+    public Optional<RoomAssignmentPlan> getPlan(UUID planId) {
+        return Optional.ofNullable(plans.get(planId));
+    }
+
+    /**
+     * Writes the plan's rooms into the classes' schedules and regenerates the term's bookings from
+     * them. Fails without changing anything if a planned session no longer exists as planned.
+     */
+    @Transactional
+    public TermGenerationResult apply(UUID planId, LocalDate termStart, LocalDate termEnd) {
+        RoomAssignmentPlan plan = getPlan(planId)
+                .orElseThrow(() -> new RuntimeException("Room assignment plan has expired, please preview it again"));
+
+        Map<UUID, List<SessionAssignment>> movesByClass = new LinkedHashMap<>();
+        Set<UUID> sessionIds = new HashSet<>();
+        for (SessionAssignment assignment : plan.getAssignments()) {
+            if (assignment.isChanged()) {
+                movesByClass.computeIfAbsent(assignment.getClassId(), id -> new ArrayList<>()).add(assignment);
+                sessionIds.add(assignment.getSessionId());
+            }
+        }
+
+        Map<UUID, ClassSession> sessions = new HashMap<>();
+        for (ClassSession session : classSessionRepository.findAllById(sessionIds)) {
+            sessions.put(session.getId(), session);
+        }
+        for (List<SessionAssignment> moves : movesByClass.values()) {
+            for (SessionAssignment move : moves) {
+                ClassSession session = sessions.get(move.getSessionId());
+                if (session == null || !session.getDay().equals(move.getDay())
+                        || !session.getStartTime().equals(move.getStartTime())
+                        || !session.getEndTime().equals(move.getEndTime())) {
+                    throw new RuntimeException(STALE_PLAN);
+                }
+            }
+        }
+
+        List<Class> classes = new ArrayList<>(movesByClass.size());
+        for (Map.Entry<UUID, List<SessionAssignment>> entry : movesByClass.entrySet()) {
+            Class classEntity = classRepository.findById(entry.getKey())
+                    .orElseThrow(() -> new RuntimeException(STALE_PLAN));
+            classEntity.setSchedule(withRooms(classEntity.getSchedule(), entry.getValue()));
+            classes.add(classEntity);
+        }
+        // The trigger on classes.schedule rebuilds the sessions before the bookings are generated
+        classRepository.saveAllAndFlush(classes);
+        plans.remove(planId);
+        log.info("Applied room assignment plan {}: {} sessions moved in {} classes", planId, sessionIds.size(), classes.size());
+
+        return termBookingGenerator.generate(termStart, termEnd);
+    }
+
+    /**
+     * Returns the schedule JSON with each moved session's entry pointing at its new room. An entry
+     * listing several days is split when only some of its days move.
+     */
+    private String withRooms(String schedule, List<SessionAssignment> moves) {
+        JsonNode document;
+        try {
+            document = schedule != null ? objectMapper.readTree(schedule) : null;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(STALE_PLAN);
+        }
+        if (document == null || !(document.isArray() || document.isObject())) {
+            throw new RuntimeException(STALE_PLAN);
+        }
+
+        Set<SessionAssignment> unmatched = new HashSet<>(moves);
+        ArrayNode rewritten = objectMapper.createArrayNode();
+        Iterable<JsonNode> entries = document.isArray() ? document : List.of(document);
+        for (JsonNode entry : entries) {
+            LocalTime[] times = entry.isObject() ? scheduleTimes(entry) : null;
+            if (times == null) {
+                rewritten.add(entry);
+                continue;
+            }
+            boolean dayList = entry.path("day").isArray();
+            List<JsonNode> days = new ArrayList<>();
+            if (dayList) {
+                entry.get("day").forEach(days::add);
+            } else {
+                days.add(entry.path("day"));
+            }
+
+            // Room label -> the entry's days that use it, in schedule order
+            Map<String, List<JsonNode>> daysByRoom = new LinkedHashMap<>();
+            String currentLabel = entry.hasNonNull("room") ? entry.get("room").asText() : null;
+            for (JsonNode day : days) {
+                String label = currentLabel;
+                DayOfWeek dayOfWeek = DAY_NAMES.get(day.asText("").trim().toLowerCase(Locale.ROOT));
+                for (SessionAssignment move : moves) {
+                    if (move.getDay() == dayOfWeek && move.getStartTime().equals(times[0])
+                            && move.getEndTime().equals(times[1])) {
+                        label = move.getProposedRoomName();
+                        unmatched.remove(move);
+                        break;
+                    }
+                }
+                daysByRoom.computeIfAbsent(label, l -> new ArrayList<>()).add(day);
+            }
+
+            for (Map.Entry<String, List<JsonNode>> group : daysByRoom.entrySet()) {
+                ObjectNode copy = entry.deepCopy();
+                if (dayList) {
+                    copy.set("day", objectMapper.createArrayNode().addAll(group.getValue()));
+                }
+                if (group.getKey() != null) {
+                    copy.put("room", group.getKey());
+                } else {
+                    copy.remove("room");
+                }
+                rewritten.add(copy);
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            throw new RuntimeException(STALE_PLAN);
+        }
+
+        try {
+            return objectMapper.writeValueAsString(document.isObject() && rewritten.size() == 1 ? rewritten.get(0) : rewritten);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write class schedule", e);
+        }
+    }
+
+    // Either "time": "08:00-09:30" or "start"/"end", as read by sync_class_sessions(); null if unreadable
+    private static LocalTime[] scheduleTimes(JsonNode entry) {
+        try {
+            if (entry.has("time")) {
+                String[] range = entry.get("time").asText().split("-");
+                return new LocalTime[]{LocalTime.parse(range[0].trim(), SCHEDULE_TIME), LocalTime.parse(range[1].trim(), SCHEDULE_TIME)};
+            }
+            return new LocalTime[]{LocalTime.parse(entry.path("start").asText().trim(), SCHEDULE_TIME),
+                    LocalTime.parse(entry.path("end").asText().trim(), SCHEDULE_TIME)};
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One session with its per-room placement costs precomputed.
+     */
+    private static final class Slot {
+
+        final int index;
+        final ClassSession session;
+        final DayOfWeek day;
+        final int start;
+        final int end;
+        final int demand;
+        // Indices into the room list, cheapest first; only rooms large enough are listed
+        final int[] candidates;
+        final int[] costByRoom;
+
+        Slot(int index, ClassSession session, List<Room> rooms, Map<UUID, Long> enrollmentCounts) {
+            this.index = index;
+            this.session = session;
+            this.day = session.getDay();
+            this.start = session.getStartTime().toSecondOfDay();
+            this.end = session.getEndTime().toSecondOfDay();
+
+            Class classEntity = session.getClass_();
+            long enrolled = enrollmentCounts.getOrDefault(classEntity.getId(), 0L);
+            this.demand = (int) (enrolled > 0 ? enrolled : Math.max(1, classEntity.getMaxStudents()));
+
+            List<String> subjectPrefixes = subjectPrefixes(classEntity.getSubject());
+            UUID currentRoomId = session.getRoom() != null ? session.getRoom().getId() : null;
+
+            this.costByRoom = new int[rooms.size()];
+            List<Integer> fitting = new ArrayList<>();
+            for (int r = 0; r < rooms.size(); r++) {
+                Room room = rooms.get(r);
+                if (room.getCapacity() < demand) {
+                    costByRoom[r] = Integer.MAX_VALUE;
+                    continue;
+                }
+                int cost = room.getCapacity() - demand;
+                if (matchesSubject(room, subjectPrefixes)) {
+                    cost -= SUBJECT_AFFINITY_BONUS;
+                }
+                if (room.getId().equals(currentRoomId)) {
+                    cost -= KEEP_CURRENT_ROOM_BONUS;
+                }
+                costByRoom[r] = cost;
+                fitting.add(r);
+            }
+            fitting.sort(Comparator.comparingInt(r -> costByRoom[r]));
+            this.candidates = fitting.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        boolean overlaps(Slot other) {
+            return start < other.end && other.start < end;
+        }
+
+        int minCost() {
+            return candidates.length > 0 ? Math.min(costByRoom[candidates[0]], UNASSIGNED_PENALTY) : UNASSIGNED_PENALTY;
+        }
+
+        private static List<String> subjectPrefixes(String subject) {
+            List<String> prefixes = new ArrayList<>();
+            if (subject != null) {
+                for (String word : subject.toLowerCase(Locale.ROOT).split("[^\\p{L}]+")) {
+                    if (word.length() >= 3) {
+                        prefixes.add(word.substring(0, 3));
+                    }
+                }
+            }
+            return prefixes;
+        }
+
+        private static boolean matchesSubject(Room room, List<String> subjectPrefixes) {
+            if (subjectPrefixes.isEmpty()) {
+                return false;
+            }
+            String text = (room.getType() + " " + room.getName() + " " + String.join(" ", room.getEquipmentItems()))
+                    .toLowerCase(Locale.ROOT);
+            for (String word : text.split("[^\\p{L}]+")) {
+                for (String prefix : subjectPrefixes) {
+                    if (word.startsWith(prefix)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Splits one day into groups of transitively overlapping sessions and searches each in parallel.
+     */
+    private static final class DaySearch extends RecursiveAction {
+
+        private final List<Slot> slots;
+        private final long deadline;
+        private final int[] assignment;
+        private final List<GroupSearch> groups = new ArrayList<>();
+
+        DaySearch(List<Slot> slots, long deadline, int[] assignment) {
+            this.slots = slots;
+            this.deadline = deadline;
+            this.assignment = assignment;
+        }
+
+        @Override
+        protected void compute() {
+            List<Slot> ordered = new ArrayList<>(slots);
+            ordered.sort(Comparator.comparingInt((Slot s) -> s.start));
+
+            List<Slot> group = new ArrayList<>();
+            int groupEnd = -1;
+            for (Slot slot : ordered) {
+                if (!group.isEmpty() && slot.start >= groupEnd) {
+                    groups.add(new GroupSearch(group, deadline, assignment));
+                    group = new ArrayList<>();
+                }
+                group.add(slot);
+                groupEnd = Math.max(groupEnd, slot.end);
+            }
+            if (!group.isEmpty()) {
+                groups.add(new GroupSearch(group, deadline, assignment));
+            }
+            ForkJoinTask.invokeAll(groups);
+        }
+
+        boolean isComplete() {
+            return groups.stream().allMatch(GroupSearch::isComplete);
+        }
+    }
+
+    /**
+     * Branch and bound over one group of mutually reachable overlapping sessions.
+     */
+    private static final class GroupSearch extends RecursiveAction {
+
+        private final Slot[] slots;
+        private final long deadline;
+        private final int[] sharedAssignment;
+        private final int[] current;
+        private final int[] best;
+        private final int[] remainingLowerBound;
+        private int bestCost;
+        private long nodes;
+        private boolean timedOut;
+
+        GroupSearch(List<Slot> group, long deadline, int[] sharedAssignment) {
+            // Most constrained first: fewest rooms that fit, then largest class
+            this.slots = group.toArray(new Slot[0]);
+            Arrays.sort(slots, Comparator.comparingInt((Slot s) -> s.candidates.length)
+                    .thenComparing(Comparator.comparingInt((Slot s) -> s.demand).reversed()));
+            this.deadline = deadline;
+            this.sharedAssignment = sharedAssignment;
+            this.current = new int[slots.length];
+            this.best = new int[slots.length];
+            this.remainingLowerBound = new int[slots.length + 1];
+            for (int i = slots.length - 1; i >= 0; i--) {
+                remainingLowerBound[i] = remainingLowerBound[i + 1] + slots[i].minCost();
+            }
+        }
+
+        @Override
+        protected void compute() {
+            bestCost = greedy();
+            search(0, 0);
+            for (int i = 0; i < slots.length; i++) {
+                sharedAssignment[slots[i].index] = best[i];
+            }
+        }
+
+        boolean isComplete() {
+            return !timedOut;
+        }
+
+        private int greedy() {
+            int cost = 0;
+            for (int i = 0; i < slots.length; i++) {
+                best[i] = -1;
+                for (int room : slots[i].candidates) {
+                    if (isFree(best, i, room)) {
+                        best[i] = room;
+                        break;
+                    }
+                }
+                cost += best[i] >= 0 ? slots[i].costByRoom[best[i]] : UNASSIGNED_PENALTY;
+            }
+            return cost;
+        }
+
+        private void search(int depth, int cost) {
+            if (timedOut || cost + remainingLowerBound[depth] >= bestCost) {
+                return;
+            }
+            if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                return;
+            }
+            if (depth == slots.length) {
+                bestCost = cost;
+                System.arraycopy(current, 0, best, 0, slots.length);
+                return;
+            }
+
+            Slot slot = slots[depth];
+            for (int room : slot.candidates) {
+                if (isFree(current, depth, room)) {
+                    current[depth] = room;
+                    search(depth + 1, cost + slot.costByRoom[room]);
+                }
+            }
+            current[depth] = -1;
+            search(depth + 1, cost + UNASSIGNED_PENALTY);
+        }
+
+        private boolean isFree(int[] placement, int depth, int room) {
+            Slot slot = slots[depth];
+            for (int i = 0; i < depth; i++) {
+                if (placement[i] == room && slots[i].overlaps(slot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
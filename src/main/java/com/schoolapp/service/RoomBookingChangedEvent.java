@@ -0,0 +1,43 @@
+package com.schoolapp.service;
+
+import com.schoolapp.model.RoomBooking;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published by {@link RoomBookingService} whenever a booking is created, moved or cancelled.
+ * Carries the booking's previous placement as well so listeners can invalidate both the
+ * old and the new room/time window.
+ */
+@Value
+public class RoomBookingChangedEvent {
+
+    UUID bookingId;
+    UUID bookerId;
+    UUID roomId;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+
+    UUID previousRoomId;
+    LocalDateTime previousStartTime;
+    LocalDateTime previousEndTime;
+
+    public static RoomBookingChangedEvent of(RoomBooking booking) {
+        return new RoomBookingChangedEvent(booking.getId(), booking.getBooker().getId(),
+                booking.getRoom().getId(), booking.getStartTime(), booking.getEndTime(),
+                null, null, null);
+    }
+
+    public static RoomBookingChangedEvent moved(RoomBooking booking, UUID previousRoomId,
+                                                LocalDateTime previousStartTime, LocalDateTime previousEndTime) {
+        return new RoomBookingChangedEvent(booking.getId(), booking.getBooker().getId(),
+                booking.getRoom().getId(), booking.getStartTime(), booking.getEndTime(),
+                previousRoomId, previousStartTime, previousEndTime);
+    }
+
+    public boolean hasPreviousPlacement() {
+        return previousRoomId != null;
+    }
+}
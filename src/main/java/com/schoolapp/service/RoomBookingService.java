@@ -1,5 +1,6 @@
 package com.schoolapp.service;
 
+import com.schoolapp.dto.BookingCandidate;
 import com.schoolapp.dto.RoomBookingRequest;
 import com.schoolapp.model.Room;
 import com.schoolapp.model.RoomBooking;
@@ -9,20 +10,30 @@ import com.schoolapp.repository.RoomBookingRepository;
 import com.schoolapp.repository.RoomRepository;
 import com.schoolapp.repository.ClassRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RoomBookingService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final RoomBookingRepository bookingRepository;
     private final RoomRepository roomRepository;
     private final ClassRepository classRepository;
     private final AuthService authService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingRuleEngine bookingRuleEngine;
+    private final ReferenceDataCache referenceDataCache;
 
     @Transactional
     public RoomBooking createBooking(RoomBookingRequest request) {
@@ -63,6 +74,8 @@ public class RoomBookingService {
             throw new RuntimeException("Number of participants exceeds room capacity");
         }
 
+        enforceRoomRules(room, request, currentUser, true);
+
         Class classEntity = null;
         if (request.getClassId() != null) {
             classEntity = classRepository.findById(request.getClassId())
@@ -86,7 +99,9 @@ public class RoomBookingService {
                 .status(RoomBooking.BookingStatus.CONFIRMED)
                 .build();
 
-        return bookingRepository.save(booking);
+        RoomBooking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(RoomBookingChangedEvent.of(saved));
+        return saved;
     }
 
     @Transactional
@@ -126,6 +141,15 @@ public class RoomBookingService {
             throw new RuntimeException("Room is already booked during this time");
         }
 
+        // Lead time only matters when the booking moves; editing its title or notes must still work
+        boolean timeChanged = !booking.getStartTime().equals(request.getStartTime())
+                || !booking.getEndTime().equals(request.getEndTime());
+        enforceRoomRules(room, request, currentUser, timeChanged);
+
+        UUID previousRoomId = booking.getRoom().getId();
+        LocalDateTime previousStartTime = booking.getStartTime();
+        LocalDateTime previousEndTime = booking.getEndTime();
+
         // Update booking details
         booking.setRoom(room);
         booking.setTitle(request.getTitle());
@@ -145,7 +169,9 @@ public class RoomBookingService {
             booking.setClass_(classEntity);
         }
 
-        return bookingRepository.save(booking);
+        RoomBooking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(RoomBookingChangedEvent.moved(saved, previousRoomId, previousStartTime, previousEndTime));
+        return saved;
     }
 
     @Transactional
@@ -165,13 +191,16 @@ public class RoomBookingService {
 
         booking.setStatus(RoomBooking.BookingStatus.CANCELLED);
         bookingRepository.save(booking);
+        eventPublisher.publishEvent(RoomBookingChangedEvent.of(booking));
     }
 
     public List<RoomBooking> getBookingsForTeacher(UUID teacherId, LocalDateTime startDate, LocalDateTime endDate) {
-        return bookingRepository.findBookingsInDateRange(startDate, endDate)
-                .stream()
-                .filter(booking -> booking.getBooker().getId().equals(teacherId))
-                .toList();
+        return bookingRepository.findBookerBookingsInDateRange(teacherId, startDate, endDate);
+    }
+
+    public Page<RoomBooking> getBookingHistoryForTeacher(UUID teacherId, RoomBooking.BookingStatus status, int page, int size) {
+        return bookingRepository.findBookerHistory(teacherId, LocalDateTime.now(), status,
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
     }
 
     public List<RoomBooking> getBookingsForRoom(UUID roomId, LocalDateTime startDate, LocalDateTime endDate) {
@@ -179,22 +208,15 @@ public class RoomBookingService {
     }
 
     public List<RoomBooking> getUpcomingBookingsForTeacher(UUID teacherId) {
-        return bookingRepository.findConfirmedBookingsByBooker(teacherId);
+        return bookingRepository.findConfirmedBookingsByBooker(teacherId, LocalDateTime.now(),
+                PageRequest.of(0, MAX_PAGE_SIZE)).getContent();
     }
 
     public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
-        List<Room> allRooms = roomRepository.findActiveRooms();
-        List<Room> unavailableRooms = new ArrayList<>();
-
-        for (Room room : allRooms) {
-            List<RoomBooking> conflicts = bookingRepository.findConflictingBookings(room.getId(), startTime, endTime);
-            if (!conflicts.isEmpty()) {
-                unavailableRooms.add(room);
-            }
-        }
-
-        allRooms.removeAll(unavailableRooms);
-        return allRooms;
+        // Cached rooms are shared, so filter into a new list instead of removing from it
+        return referenceDataCache.getActiveRooms().stream()
+                .filter(room -> bookingRepository.findConflictingBookings(room.getId(), startTime, endTime).isEmpty())
+                .collect(Collectors.toList());
     }
 
     public boolean isRoomAvailable(UUID roomId, LocalDateTime startTime, LocalDateTime endTime) {
@@ -224,13 +246,33 @@ public class RoomBookingService {
     }
 
     public Map<String, Long> getRoomUsageStats(UUID roomId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<RoomBooking> bookings = bookingRepository.findBookingsInDateRange(roomId, startDate, endDate);
+        Map<RoomBooking.BookingStatus, Long> countsByStatus = new EnumMap<>(RoomBooking.BookingStatus.class);
+        for (Object[] row : bookingRepository.countByStatusInDateRange(roomId, startDate, endDate)) {
+            countsByStatus.put((RoomBooking.BookingStatus) row[0], (Long) row[1]);
+        }
+
+        long confirmed = countsByStatus.getOrDefault(RoomBooking.BookingStatus.CONFIRMED, 0L);
+        long cancelled = countsByStatus.getOrDefault(RoomBooking.BookingStatus.CANCELLED, 0L);
 
         Map<String, Long> stats = new HashMap<>();
-        stats.put("totalBookings", (long) bookings.size());
-        stats.put("confirmedBookings", bookings.stream().filter(b -> b.isConfirmed()).count());
-        stats.put("cancelledBookings", bookings.stream().filter(b -> b.isCancelled()).count());
+        stats.put("totalBookings", confirmed + cancelled);
+        stats.put("confirmedBookings", confirmed);
+        stats.put("cancelledBookings", cancelled);
+        stats.put("occupiedMinutes", bookingRepository.sumOccupiedMinutes(roomId, startDate, endDate));
 
         return stats;
     }
-}
\ No newline at end of file
+
+    private void enforceRoomRules(Room room, RoomBookingRequest request, User booker, boolean checkLeadTime) {
+        BookingCandidate candidate = BookingCandidate.builder()
+                .startTime(request.getStartTime())
+                .endTime(request.getEndTime())
+                .bookerRole(booker.getRole())
+                .numberOfParticipants(request.getNumberOfParticipants())
+                .requestedAt(checkLeadTime ? LocalDateTime.now() : null)
+                .build();
+        bookingRuleEngine.check(room, candidate).ifPresent(violation -> {
+            throw new RuntimeException(violation);
+        });
+    }
+}
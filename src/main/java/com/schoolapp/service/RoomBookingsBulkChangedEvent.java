@@ -0,0 +1,20 @@
+package com.schoolapp.service;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published after a bulk write (such as term generation) touched many bookings at once, in place of
+ * one {@link RoomBookingChangedEvent} per booking.
+ */
+@Value
+public class RoomBookingsBulkChangedEvent {
+
+    Set<UUID> roomIds;
+    Set<UUID> bookerIds;
+    LocalDateTime from;
+    LocalDateTime to;
+}
@@ -0,0 +1,243 @@
+package com.schoolapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.schoolapp.dto.CalendarEntry;
+import com.schoolapp.dto.WeekCalendarSnapshot;
+import com.schoolapp.repository.RoomBookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.IsoFields;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Week-view calendars for rooms and teachers, served from immutable snapshots keyed by
+ * (owner, ISO week). Every key has a version that booking writes bump, so a conditional GET is
+ * answered from memory and unchanged polls never reach the database. Snapshots are kept for
+ * recently viewed weeks only.
+ *
+ * A version is the time of the last booking write to the week, never lower than a shared epoch.
+ * Writes are stamped by the writing instance and sent to the others through
+ * {@link ClusterNotificationService}, so every instance hands out the same ETag. The epoch lives
+ * in the version_epochs table and moves forward, on every instance, when one of them has too
+ * many versions or missed notifications (including at startup).
+ */
+@Service
+@Slf4j
+public class RoomCalendarService {
+
+    public static final String ROOM = "room";
+    public static final String TEACHER = "teacher";
+
+    private static final String TOPIC = "calendar";
+    private static final String EPOCH_MESSAGE = "epoch";
+    private static final String ADVANCE_EPOCH_SQL =
+            "UPDATE version_epochs SET stamp = GREATEST(stamp + 1, ?) WHERE name = 'calendar' RETURNING stamp";
+    private static final int MAX_SNAPSHOTS = 5000;
+    private static final int MAX_VERSIONS = 50000;
+    private static final Duration SNAPSHOT_IDLE = Duration.ofMinutes(30);
+
+    private final RoomBookingRepository bookingRepository;
+    private final ClusterNotificationService clusterNotifications;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate epochTransaction;
+
+    private final Map<CalendarKey, Long> versions = new ConcurrentHashMap<>();
+    private final Cache<CalendarKey, WeekCalendarSnapshot> snapshots = Caffeine.newBuilder()
+            .maximumSize(MAX_SNAPSHOTS)
+            .expireAfterAccess(SNAPSHOT_IDLE)
+            .build();
+    // Until the listener connects and the first resync advances the shared epoch
+    private volatile long epoch = System.currentTimeMillis();
+
+    public RoomCalendarService(RoomBookingRepository bookingRepository,
+                               ClusterNotificationService clusterNotifications,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.clusterNotifications = clusterNotifications;
+        this.jdbcTemplate = jdbcTemplate;
+        this.epochTransaction = new TransactionTemplate(transactionManager);
+        epochTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        clusterNotifications.subscribe(TOPIC, this::onMessage);
+    }
+
+    /**
+     * Monday of the given ISO week ({@code 2024-W07}), or of this week when blank.
+     *
+     * @throws DateTimeParseException if {@code isoWeek} is not an ISO week
+     */
+    public static LocalDate parseIsoWeek(String isoWeek) {
+        if (isoWeek == null || isoWeek.isBlank()) {
+            return RoomUtilizationService.weekStartOf(LocalDate.now());
+        }
+        return LocalDate.parse(isoWeek + "-1", DateTimeFormatter.ISO_WEEK_DATE);
+    }
+
+    public String currentETag(String kind, UUID ownerId, LocalDate weekStart) {
+        CalendarKey key = new CalendarKey(kind, ownerId, weekStart);
+        return etag(key, version(key));
+    }
+
+    public WeekCalendarSnapshot getRoomWeek(UUID roomId, LocalDate weekStart) {
+        return getSnapshot(new CalendarKey(ROOM, roomId, weekStart));
+    }
+
+    public WeekCalendarSnapshot getTeacherWeek(UUID teacherId, LocalDate weekStart) {
+        return getSnapshot(new CalendarKey(TEACHER, teacherId, weekStart));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(RoomBookingChangedEvent event) {
+        long changedAt = System.currentTimeMillis();
+        changed(changedAt, ROOM, event.getRoomId(), event.getStartTime(), event.getEndTime());
+        changed(changedAt, TEACHER, event.getBookerId(), event.getStartTime(), event.getEndTime());
+        if (event.hasPreviousPlacement()) {
+            changed(changedAt, ROOM, event.getPreviousRoomId(), event.getPreviousStartTime(), event.getPreviousEndTime());
+            changed(changedAt, TEACHER, event.getBookerId(), event.getPreviousStartTime(), event.getPreviousEndTime());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookingsBulkChanged(RoomBookingsBulkChangedEvent event) {
+        long changedAt = System.currentTimeMillis();
+        event.getRoomIds().forEach(roomId -> changed(changedAt, ROOM, roomId, event.getFrom(), event.getTo()));
+        event.getBookerIds().forEach(bookerId -> changed(changedAt, TEACHER, bookerId, event.getFrom(), event.getTo()));
+    }
+
+    private WeekCalendarSnapshot getSnapshot(CalendarKey key) {
+        long version = version(key);
+        WeekCalendarSnapshot snapshot = snapshots.getIfPresent(key);
+        if (snapshot != null && snapshot.getVersion() == version) {
+            return snapshot;
+        }
+
+        LocalDateTime start = key.weekStart().atStartOfDay();
+        LocalDateTime end = start.plusDays(7);
+        List<CalendarEntry> entries = ROOM.equals(key.kind())
+                ? bookingRepository.findRoomCalendarEntries(key.ownerId(), start, end)
+                : bookingRepository.findBookerCalendarEntries(key.ownerId(), start, end);
+
+        snapshot = WeekCalendarSnapshot.builder()
+                .kind(key.kind())
+                .ownerId(key.ownerId())
+                .isoWeek(String.format("%d-W%02d", key.weekStart().get(IsoFields.WEEK_BASED_YEAR),
+                        key.weekStart().get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)))
+                .weekStart(key.weekStart())
+                .version(version)
+                .etag(etag(key, version))
+                .entries(List.copyOf(entries))
+                .build();
+
+        // Only keep the snapshot if no write landed while it was being read
+        if (version(key) == version) {
+            snapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private long version(CalendarKey key) {
+        return Math.max(versions.getOrDefault(key, 0L), epoch);
+    }
+
+    /**
+     * Sends the change to other instances as part of the writer's transaction (NOTIFY is
+     * transactional) and bumps the version here once it commits, so a reader on this instance
+     * cannot cache the old bookings under the new version. Both sides use the same stamp.
+     */
+    private void changed(long changedAt, String kind, UUID ownerId, LocalDateTime startTime, LocalDateTime endTime) {
+        clusterNotifications.publish(TOPIC, changedAt + ";" + kind + ";" + ownerId + ";" + startTime + ";" + endTime);
+        Runnable bump = () -> bump(changedAt, kind, ownerId, startTime, endTime);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    private void bump(long changedAt, String kind, UUID ownerId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (versions.size() > MAX_VERSIONS) {
+            log.debug("Calendar versions are full, moving the epoch forward");
+            advanceEpoch();
+        }
+        LocalDate week = RoomUtilizationService.weekStartOf(startTime.toLocalDate());
+        LocalDate lastWeek = RoomUtilizationService.weekStartOf(endTime.toLocalDate());
+        while (!week.isAfter(lastWeek)) {
+            CalendarKey key = new CalendarKey(kind, ownerId, week);
+            // Always past the version served so far, even for two writes within one millisecond
+            versions.compute(key, (k, old) -> Math.max(changedAt, Math.max(old == null ? 0L : old, epoch) + 1));
+            snapshots.invalidate(key);
+            week = week.plusWeeks(1);
+        }
+    }
+
+    // In its own transaction, so it also works from AFTER_COMMIT listeners and the listener thread
+    private void advanceEpoch() {
+        try {
+            Long advanced = epochTransaction.execute(status -> {
+                Long stamp = jdbcTemplate.queryForObject(ADVANCE_EPOCH_SQL, Long.class, System.currentTimeMillis());
+                clusterNotifications.publish(TOPIC, EPOCH_MESSAGE + ";" + stamp);
+                return stamp;
+            });
+            adoptEpoch(advanced != null ? advanced : System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Still move forward here so this instance never serves a version it may have missed
+            log.warn("Could not advance the shared calendar epoch: {}", e.getMessage());
+            adoptEpoch(System.currentTimeMillis());
+        }
+    }
+
+    private synchronized void adoptEpoch(long advanced) {
+        if (advanced <= epoch) {
+            return;
+        }
+        epoch = advanced;
+        // Versions at or below the epoch add nothing
+        versions.values().removeIf(version -> version <= advanced);
+    }
+
+    private void onMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            // Writes may have been missed: move every instance past them
+            advanceEpoch();
+            return;
+        }
+        String[] parts = message.split(";");
+        if (EPOCH_MESSAGE.equals(parts[0])) {
+            adoptEpoch(Long.parseLong(parts[1]));
+            return;
+        }
+        bump(Long.parseLong(parts[0]), parts[1], UUID.fromString(parts[2]),
+                LocalDateTime.parse(parts[3]), LocalDateTime.parse(parts[4]));
+    }
+
+    private static String etag(CalendarKey key, long version) {
+        return "\"" + key.kind() + "-" + key.ownerId() + "-" + key.weekStart() + "-" + Long.toString(version, 36) + "\"";
+    }
+
+    private record CalendarKey(String kind, UUID ownerId, LocalDate weekStart) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.dto.RoomSearchCriteria;
+import com.schoolapp.model.Room;
+import com.schoolapp.repository.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class RoomService {
+
+    private final RoomRepository roomRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Ranked search over active rooms; an empty criteria lists every active room.
+     */
+    public List<Room> searchRooms(RoomSearchCriteria criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            return referenceDataCache.getActiveRooms();
+        }
+        if (criteria.getMinCapacity() != null && criteria.getMaxCapacity() != null
+                && criteria.getMinCapacity() > criteria.getMaxCapacity()) {
+            throw new RuntimeException("Minimum capacity cannot be greater than maximum capacity");
+        }
+
+        return roomRepository.searchActiveRoomsByAttributes(
+                toEquipmentJson(criteria.getEquipment()),
+                blankToNull(criteria.getType()),
+                criteria.getMinCapacity(),
+                criteria.getMaxCapacity(),
+                escapeLike(blankToNull(criteria.getLocation())));
+    }
+
+    public List<String> getRoomTypes() {
+        return referenceDataCache.getActiveRoomTypes();
+    }
+
+    // Matches the lower-cased equipment_search column
+    private String toEquipmentJson(List<String> equipment) {
+        if (equipment == null) {
+            return null;
+        }
+        List<String> items = equipment.stream()
+                .filter(Objects::nonNull)
+                .map(item -> item.trim().toLowerCase(Locale.ROOT))
+                .filter(item -> !item.isEmpty())
+                .distinct()
+                .toList();
+        if (items.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid equipment filter", e);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // A location is matched as a literal prefix, so '%' and '_' typed by the user match only themselves
+    private static String escapeLike(String text) {
+        return text == null ? null : text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
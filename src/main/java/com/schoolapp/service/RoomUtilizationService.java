@@ -0,0 +1,180 @@
+package com.schoolapp.service;
+
+import com.schoolapp.dto.DailyPeakConcurrency;
+import com.schoolapp.dto.RoomHourUsage;
+import com.schoolapp.dto.RoomWeekUtilization;
+import com.schoolapp.model.Room;
+import com.schoolapp.repository.RoomBookingRepository;
+import com.schoolapp.repository.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Room utilization analytics. The aggregation itself runs in PostgreSQL; results are cached
+ * per (room, ISO week) and dropped whenever a booking touching that room and week changes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomUtilizationService {
+
+    private static final int MAX_CACHED_WEEKS = 2000;
+
+    private final RoomBookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+
+    private final Map<UtilizationKey, RoomWeekUtilization> weekCache = new ConcurrentHashMap<>();
+    private final Map<LocalDate, int[]> peakCache = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a computation racing with a booking write is not cached.
+    private final AtomicLong generation = new AtomicLong();
+
+    public static LocalDate weekStartOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    public RoomWeekUtilization getWeeklyUtilization(UUID roomId, LocalDate date) {
+        Room room = roomRepository.findById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found: " + roomId));
+        return getWeeklyUtilization(List.of(room), date).get(0);
+    }
+
+    /**
+     * Returns utilization for each of the given rooms, in the same order, loading all cache misses in one query.
+     */
+    public List<RoomWeekUtilization> getWeeklyUtilization(List<Room> rooms, LocalDate date) {
+        LocalDate weekStart = weekStartOf(date);
+
+        Map<UUID, Room> missing = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            if (!weekCache.containsKey(new UtilizationKey(room.getId(), weekStart))) {
+                missing.put(room.getId(), room);
+            }
+        }
+
+        Map<UUID, RoomWeekUtilization> loaded = missing.isEmpty() ? Map.of() : load(missing, weekStart);
+
+        List<RoomWeekUtilization> result = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            RoomWeekUtilization utilization = loaded.get(room.getId());
+            if (utilization == null) {
+                utilization = weekCache.get(new UtilizationKey(room.getId(), weekStart));
+            }
+            if (utilization == null) {
+                // Evicted between the lookup and now; compute it on its own.
+                utilization = load(Map.of(room.getId(), room), weekStart).get(room.getId());
+            }
+            result.add(utilization);
+        }
+        return result;
+    }
+
+    /**
+     * Peak number of rooms in use at the same time, for each day of the week (Monday first).
+     */
+    public int[] getDailyPeakConcurrency(LocalDate date) {
+        LocalDate weekStart = weekStartOf(date);
+        int[] cached = peakCache.get(weekStart);
+        if (cached != null) {
+            return cached.clone();
+        }
+
+        long observedGeneration = generation.get();
+        int[] peaks = new int[7];
+        LocalDateTime start = weekStart.atStartOfDay();
+        for (DailyPeakConcurrency row : bookingRepository.findDailyPeakConcurrency(start, start.plusDays(7))) {
+            int day = (int) (row.getDay().toEpochDay() - weekStart.toEpochDay());
+            if (day >= 0 && day < 7) {
+                peaks[day] = row.getPeakConcurrency();
+            }
+        }
+
+        if (generation.get() == observedGeneration) {
+            peakCache.put(weekStart, peaks);
+        }
+        return peaks.clone();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(RoomBookingChangedEvent event) {
+        generation.incrementAndGet();
+        evict(event.getRoomId(), event.getStartTime(), event.getEndTime());
+        if (event.hasPreviousPlacement()) {
+            evict(event.getPreviousRoomId(), event.getPreviousStartTime(), event.getPreviousEndTime());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingsBulkChanged(RoomBookingsBulkChangedEvent event) {
+        generation.incrementAndGet();
+        for (UUID roomId : event.getRoomIds()) {
+            evict(roomId, event.getFrom(), event.getTo());
+        }
+    }
+
+    private void evict(UUID roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate week = weekStartOf(startTime.toLocalDate());
+        LocalDate lastWeek = weekStartOf(endTime.toLocalDate());
+        while (!week.isAfter(lastWeek)) {
+            weekCache.remove(new UtilizationKey(roomId, week));
+            peakCache.remove(week);
+            week = week.plusWeeks(1);
+        }
+    }
+
+    private Map<UUID, RoomWeekUtilization> load(Map<UUID, Room> rooms, LocalDate weekStart) {
+        long observedGeneration = generation.get();
+
+        Map<UUID, int[][]> minutes = new HashMap<>();
+        for (UUID roomId : rooms.keySet()) {
+            minutes.put(roomId, new int[7][24]);
+        }
+        for (RoomHourUsage usage : bookingRepository.findHourlyUsageForWeek(rooms.keySet(), weekStart.atStartOfDay())) {
+            minutes.get(usage.getRoomId())[usage.getDayOfWeek() - 1][usage.getHourOfDay()] = usage.getOccupiedMinutes();
+        }
+
+        Map<UUID, RoomWeekUtilization> result = new HashMap<>();
+        for (Map.Entry<UUID, int[][]> entry : minutes.entrySet()) {
+            int[][] byHour = entry.getValue();
+            int[] byDay = new int[7];
+            int total = 0;
+            for (int day = 0; day < 7; day++) {
+                for (int hour = 0; hour < 24; hour++) {
+                    byDay[day] += byHour[day][hour];
+                }
+                total += byDay[day];
+            }
+
+            result.put(entry.getKey(), RoomWeekUtilization.builder()
+                    .roomId(entry.getKey())
+                    .roomName(rooms.get(entry.getKey()).getName())
+                    .weekStart(weekStart)
+                    .minutesByHour(byHour)
+                    .minutesByDay(byDay)
+                    .totalMinutes(total)
+                    .build());
+        }
+
+        if (generation.get() == observedGeneration) {
+            if (weekCache.size() > MAX_CACHED_WEEKS) {
+                log.debug("Room utilization cache exceeded {} entries, clearing", MAX_CACHED_WEEKS);
+                weekCache.clear();
+            }
+            result.forEach((roomId, utilization) -> weekCache.put(new UtilizationKey(roomId, weekStart), utilization));
+        }
+        return result;
+    }
+
+    private record UtilizationKey(UUID roomId, LocalDate weekStart) {
+    }
+}
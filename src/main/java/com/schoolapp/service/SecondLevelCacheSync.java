@@ -0,0 +1,185 @@
+package com.schoolapp.service;
+
+import com.schoolapp.model.Class;
+import com.schoolapp.model.ClassEnrollment;
+import com.schoolapp.model.Room;
+import com.schoolapp.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * Keeps the Hibernate second-level cache (regions in application.conf) coherent where
+ * Hibernate cannot: other instances only learn about a write through
+ * {@link ClusterNotificationService}, SQL run through JdbcTemplate is invisible to Hibernate,
+ * and adding or removing an enrollment does not touch the cached enrollment list of its class.
+ */
+@Component
+public class SecondLevelCacheSync {
+
+    private static final String TOPIC = "entity-cache";
+    private static final int IDS_PER_MESSAGE = 150;
+    private static final String USERS = "users";
+    private static final String ROOMS = "rooms";
+    private static final String CLASSES = "classes";
+    private static final String ENROLLMENTS = "enrollments";
+    private static final String ENROLLMENT_LISTS = "enrollment-lists";
+    private static final String ENROLLMENTS_ROLE = Class.class.getName() + ".enrollments";
+    private static final String USER_COUNTS_REGION = "user-counts";
+
+    private final Cache cache;
+    private final ClusterNotificationService clusterNotifications;
+
+    public SecondLevelCacheSync(EntityManagerFactory entityManagerFactory,
+                                ClusterNotificationService clusterNotifications) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.clusterNotifications = clusterNotifications;
+
+        clusterNotifications.subscribe(TOPIC, this::onMessage);
+    }
+
+    /**
+     * Called by {@link com.schoolapp.model.listener.SecondLevelCacheListener} when Hibernate has
+     * written a cached entity. Hibernate has already updated this instance's entity region.
+     */
+    public void entityChanged(Object entity) {
+        if (entity instanceof User user) {
+            publishOnce(USERS, user.getId());
+        } else if (entity instanceof Room room) {
+            publishOnce(ROOMS, room.getId());
+        } else if (entity instanceof Class classEntity) {
+            publishOnce(CLASSES, classEntity.getId());
+        } else if (entity instanceof ClassEnrollment enrollment) {
+            publishOnce(ENROLLMENTS, enrollment.getId());
+            if (enrollment.getClass_() != null) {
+                // getId() does not initialize a proxy
+                UUID classId = enrollment.getClass_().getId();
+                evictLocally(ENROLLMENT_LISTS, List.of(classId));
+                publishOnce(ENROLLMENT_LISTS, classId);
+            }
+        }
+    }
+
+    /**
+     * Evicts users changed with plain SQL, here and on every other instance.
+     */
+    public void evictUsers(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        evictLocally(USERS, userIds);
+        StringJoiner batch = new StringJoiner(",");
+        int inBatch = 0;
+        for (UUID userId : userIds) {
+            batch.add(userId.toString());
+            // NOTIFY payloads are limited to 8000 bytes
+            if (++inBatch == IDS_PER_MESSAGE) {
+                clusterNotifications.publish(TOPIC, USERS + ":" + batch);
+                batch = new StringJoiner(",");
+                inBatch = 0;
+            }
+        }
+        if (inBatch > 0) {
+            clusterNotifications.publish(TOPIC, USERS + ":" + batch);
+        }
+    }
+
+    public void evictUser(UUID userId) {
+        evictUsers(List.of(userId));
+    }
+
+    // One message per entity and transaction, however often it is flushed
+    private void publishOnce(String kind, UUID id) {
+        if (id == null) {
+            return;
+        }
+        String message = kind + ":" + id;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingMessages pending = (PendingMessages) TransactionSynchronizationManager.getResource(this);
+            if (pending == null) {
+                pending = new PendingMessages();
+                TransactionSynchronizationManager.bindResource(this, pending);
+                TransactionSynchronizationManager.registerSynchronization(pending);
+            }
+            if (!pending.sent.add(message)) {
+                return;
+            }
+        }
+        // NOTIFY is transactional: other instances hear about it only if this commits
+        clusterNotifications.publish(TOPIC, message);
+    }
+
+    private void evictLocally(String kind, Collection<UUID> ids) {
+        evict(kind, ids);
+        afterCommit(() -> evict(kind, ids));
+    }
+
+    private void evict(String kind, Collection<UUID> ids) {
+        for (UUID id : ids) {
+            switch (kind) {
+                case USERS -> cache.evictEntityData(User.class, id);
+                case ROOMS -> cache.evictEntityData(Room.class, id);
+                case CLASSES -> {
+                    cache.evictEntityData(Class.class, id);
+                    cache.evictCollectionData(ENROLLMENTS_ROLE, id);
+                }
+                case ENROLLMENTS -> cache.evictEntityData(ClassEnrollment.class, id);
+                case ENROLLMENT_LISTS -> cache.evictCollectionData(ENROLLMENTS_ROLE, id);
+                default -> { }
+            }
+        }
+        // Cached counts are only invalidated by writes this instance's Hibernate saw
+        if (USERS.equals(kind)) {
+            cache.evictQueryRegion(USER_COUNTS_REGION);
+        }
+    }
+
+    private void onMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            cache.evictAllRegions();
+            return;
+        }
+        int colon = message.indexOf(':');
+        if (colon < 0) {
+            return;
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (String id : message.substring(colon + 1).split(",")) {
+            ids.add(UUID.fromString(id));
+        }
+        evict(message.substring(0, colon), ids);
+    }
+
+    // A concurrent load may re-cache the old row before the transaction commits
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private class PendingMessages implements TransactionSynchronization {
+
+        private final Set<String> sent = new HashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SecondLevelCacheSync.this);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.schoolapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.schoolapp.model.UserSession;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-process cache of session token lookups. Valid sessions are kept until they expire (or
+ * {@code max-ttl}, whichever comes first); unknown or invalid tokens are remembered for
+ * {@code negative-ttl}. At {@code max-size} entries the least valuable one is evicted. Deactivations
+ * evict locally at once and on other instances through {@link ClusterNotificationService}.
+ * Hits and misses are reported as {@code cache.gets} with {@code cache=session-tokens}.
+ *
+ * Cached sessions are detached: only the user's id may be read from {@link UserSession#getUser()}.
+ */
+@Component
+public class SessionTokenCache {
+
+    private static final String TOKEN_TOPIC = "session-token";
+    private static final String USER_TOPIC = "session-user";
+    private static final int USERS_PER_MESSAGE = 150;
+
+    private final ClusterNotificationService clusterNotifications;
+    private final Duration negativeTtl;
+    private final Duration maxTtl;
+
+    private final Cache<String, Entry> entries;
+    private final Map<UUID, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a lookup that raced with it does not cache what it read
+    private final AtomicLong generation = new AtomicLong();
+
+    public SessionTokenCache(ClusterNotificationService clusterNotifications,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.sessions.token-cache.max-size:10000}") int maxSize,
+                             @Value("${app.sessions.token-cache.negative-ttl:30s}") Duration negativeTtl,
+                             @Value("${app.sessions.token-cache.max-ttl:5m}") Duration maxTtl) {
+        this.clusterNotifications = clusterNotifications;
+        this.negativeTtl = negativeTtl;
+        this.maxTtl = maxTtl;
+
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String token, Entry entry, long currentTime) {
+                        return entry.timeLeft().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+                        return entry.timeLeft().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // Size and expiry only; explicit removals clean up tokensByUser themselves
+                .evictionListener((String token, Entry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        forgetUserToken(entry.userId, token);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "session-tokens");
+
+        clusterNotifications.subscribe(TOKEN_TOPIC, this::onTokenMessage);
+        clusterNotifications.subscribe(USER_TOPIC, this::onUserMessage);
+    }
+
+    public Optional<UserSession> get(String token, Function<String, Optional<UserSession>> loader) {
+        Entry cached = entries.getIfPresent(token);
+        if (cached != null) {
+            return Optional.ofNullable(cached.session);
+        }
+
+        long observed = generation.get();
+        Optional<UserSession> loaded = loader.apply(token);
+        if (generation.get() == observed) {
+            put(token, loaded.orElse(null), LocalDateTime.now());
+        }
+        return loaded;
+    }
+
+    /**
+     * Forgets one token here and on every other instance, e.g. after its session was deactivated.
+     */
+    public void evictToken(String token) {
+        removeToken(token);
+        afterCommit(() -> removeToken(token));
+        clusterNotifications.publish(TOKEN_TOPIC, token);
+    }
+
+    /**
+     * Forgets all of a user's tokens here and on every other instance.
+     */
+    public void evictUser(UUID userId) {
+        removeUser(userId);
+        afterCommit(() -> removeUser(userId));
+        clusterNotifications.publish(USER_TOPIC, userId.toString());
+    }
+
+    /**
+     * Forgets the tokens of many users, sending other instances a few batched messages rather
+     * than one per user.
+     */
+    public void evictUsers(Collection<UUID> userIds) {
+        userIds.forEach(this::removeUser);
+        afterCommit(() -> userIds.forEach(this::removeUser));
+        StringJoiner batch = new StringJoiner(",");
+        int inBatch = 0;
+        for (UUID userId : userIds) {
+            batch.add(userId.toString());
+            // NOTIFY payloads are limited to 8000 bytes
+            if (++inBatch == USERS_PER_MESSAGE) {
+                clusterNotifications.publish(USER_TOPIC, batch.toString());
+                batch = new StringJoiner(",");
+                inBatch = 0;
+            }
+        }
+        if (inBatch > 0) {
+            clusterNotifications.publish(USER_TOPIC, batch.toString());
+        }
+    }
+
+    /**
+     * Drops a negative entry for a token that has just been created; no other instance needs telling
+     * because their negative entries expire quickly.
+     */
+    public void forgetMissing(String token) {
+        Entry cached = entries.getIfPresent(token);
+        if (cached != null && cached.session == null) {
+            entries.asMap().remove(token, cached);
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        entries.invalidateAll();
+        tokensByUser.clear();
+    }
+
+    private void put(String token, UserSession session, LocalDateTime now) {
+        if (session == null) {
+            entries.put(token, new Entry(null, null, now.plus(negativeTtl)));
+            return;
+        }
+        LocalDateTime validUntil = now.plus(maxTtl);
+        if (session.getExpiresAt().isBefore(validUntil)) {
+            validUntil = session.getExpiresAt();
+        }
+        UUID userId = session.getUser().getId();
+        tokensByUser.compute(userId, (id, tokens) -> {
+            Set<String> updated = tokens != null ? tokens : ConcurrentHashMap.newKeySet();
+            updated.add(token);
+            return updated;
+        });
+        entries.put(token, new Entry(session, userId, validUntil));
+    }
+
+    private void removeToken(String token) {
+        generation.incrementAndGet();
+        Entry removed = entries.asMap().remove(token);
+        if (removed != null) {
+            forgetUserToken(removed.userId, token);
+        }
+    }
+
+    private void removeUser(UUID userId) {
+        generation.incrementAndGet();
+        Set<String> tokens = tokensByUser.remove(userId);
+        if (tokens != null) {
+            entries.invalidateAll(new HashSet<>(tokens));
+        }
+    }
+
+    private void forgetUserToken(UUID userId, String token) {
+        if (userId == null) {
+            return;
+        }
+        tokensByUser.computeIfPresent(userId, (id, tokens) -> {
+            tokens.remove(token);
+            return tokens.isEmpty() ? null : tokens;
+        });
+    }
+
+    private void onTokenMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            clear();
+        } else {
+            removeToken(message);
+        }
+    }
+
+    private void onUserMessage(String message) {
+        if (ClusterNotificationService.RESYNC.equals(message)) {
+            clear();
+        } else {
+            for (String userId : message.split(",")) {
+                removeUser(UUID.fromString(userId));
+            }
+        }
+    }
+
+    // A concurrent lookup may re-read the old row before the transaction commits
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record Entry(UserSession session, UUID userId, LocalDateTime validUntil) {
+
+        Duration timeLeft() {
+            Duration left = Duration.between(LocalDateTime.now(), validUntil);
+            return left.isNegative() ? Duration.ZERO : left;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.schoolapp.service;
+
+import com.schoolapp.dto.BookingCandidate;
+import com.schoolapp.dto.TermBookingConflict;
+import com.schoolapp.dto.TermGenerationResult;
+import com.schoolapp.model.Class;
+import com.schoolapp.model.ClassSession;
+import com.schoolapp.model.Room;
+import com.schoolapp.model.User;
+import com.schoolapp.repository.ClassEnrollmentRepository;
+import com.schoolapp.repository.ClassSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Materializes the class timetable ({@code class_sessions}) as room bookings for a whole term.
+ *
+ * Occurrences are expanded and checked against room rules in Java, written to a temporary table
+ * in JDBC batches, and then diffed, conflict-checked and inserted with a few set-based statements.
+ * Re-running is safe: generated bookings whose occurrence still exists are left alone, ones whose
+ * schedule changed are removed, and only new occurrences are inserted. Occurrences whose room is
+ * too small for the class are reported instead of booked.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TermBookingGenerator {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String NOTES = "Generated from the class timetable";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClassSessionRepository classSessionRepository;
+    private final ClassEnrollmentRepository enrollmentRepository;
+    private final BookingRuleEngine bookingRuleEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public TermGenerationResult generate(LocalDate termStart, LocalDate termEnd) {
+        if (termEnd.isBefore(termStart)) {
+            throw new RuntimeException("Term end must not be before term start");
+        }
+        if (termStart.plusYears(1).isBefore(termEnd)) {
+            throw new RuntimeException("A term cannot be longer than one year");
+        }
+
+        long started = System.currentTimeMillis();
+        // Occurrences that already started are history and are never touched
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate from = termStart.isBefore(now.toLocalDate()) ? now.toLocalDate() : termStart;
+        LocalDateTime windowStart = from.atStartOfDay().isBefore(now) ? now : from.atStartOfDay();
+        LocalDateTime windowEnd = termEnd.plusDays(1).atStartOfDay();
+
+        // One generator at a time; concurrent runs would diff against each other's half-written state
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('term_booking_generator'))");
+
+        List<TermBookingConflict> conflicts = new ArrayList<>();
+        List<Object[]> occurrences = expandOccurrences(from, termEnd, windowStart, conflicts);
+
+        jdbcTemplate.execute("CREATE TEMP TABLE IF NOT EXISTS term_occurrences (" +
+                "class_id UUID NOT NULL, room_id UUID NOT NULL, booker_id UUID NOT NULL, " +
+                "title VARCHAR(255) NOT NULL, start_time TIMESTAMP NOT NULL, end_time TIMESTAMP NOT NULL, " +
+                "participants INTEGER NOT NULL, priority INTEGER NOT NULL, conflict TEXT) ON COMMIT DROP");
+        jdbcTemplate.execute("TRUNCATE term_occurrences");
+        for (int i = 0; i < occurrences.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("INSERT INTO term_occurrences " +
+                    "(class_id, room_id, booker_id, title, start_time, end_time, participants, priority) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    occurrences.subList(i, Math.min(i + BATCH_SIZE, occurrences.size())));
+        }
+        jdbcTemplate.execute("ANALYZE term_occurrences");
+
+        Set<UUID> touchedRooms = new HashSet<>();
+        Set<UUID> touchedBookers = new HashSet<>();
+
+        // Generated bookings (in any status) whose occurrence is no longer in the timetable
+        List<Map<String, Object>> removed = jdbcTemplate.queryForList(
+                "DELETE FROM room_bookings b WHERE b.term_generated " +
+                "AND b.start_time >= ? AND b.start_time < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM term_occurrences t WHERE t.class_id = b.class_id " +
+                "AND t.room_id = b.room_id AND t.start_time = b.start_time AND t.end_time = b.end_time) " +
+                "RETURNING b.room_id, b.booker_id",
+                Timestamp.valueOf(windowStart), Timestamp.valueOf(windowEnd));
+        for (Map<String, Object> row : removed) {
+            touchedRooms.add((UUID) row.get("room_id"));
+            touchedBookers.add((UUID) row.get("booker_id"));
+        }
+
+        // Already generated by an earlier run; a teacher may since have cancelled it, which is respected
+        int unchanged = jdbcTemplate.update(
+                "DELETE FROM term_occurrences t USING room_bookings b WHERE b.term_generated " +
+                "AND b.class_id = t.class_id AND b.room_id = t.room_id " +
+                "AND b.start_time = t.start_time AND b.end_time = t.end_time");
+
+        jdbcTemplate.update(
+                "UPDATE term_occurrences t SET conflict = 'Room already booked: ' || b.title " +
+                "FROM room_bookings b WHERE b.room_id = t.room_id AND b.status = 'CONFIRMED' " +
+                "AND tsrange(b.start_time, b.end_time) && tsrange(t.start_time, t.end_time)");
+
+        rejectTimetableClashes();
+
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO room_bookings (room_id, booker_id, class_id, title, start_time, end_time, " +
+                "number_of_participants, status, notes, term_generated) " +
+                "SELECT room_id, booker_id, class_id, title, start_time, end_time, participants, " +
+                "'CONFIRMED', ?, true FROM term_occurrences WHERE conflict IS NULL",
+                NOTES);
+
+        jdbcTemplate.query("SELECT DISTINCT room_id, booker_id FROM term_occurrences WHERE conflict IS NULL", rs -> {
+            touchedRooms.add(rs.getObject("room_id", UUID.class));
+            touchedBookers.add(rs.getObject("booker_id", UUID.class));
+        });
+
+        conflicts.addAll(jdbcTemplate.query(
+                "SELECT t.title, r.name AS room_name, t.start_time, t.end_time, t.conflict " +
+                "FROM term_occurrences t JOIN rooms r ON r.id = t.room_id " +
+                "WHERE t.conflict IS NOT NULL ORDER BY t.start_time, t.title",
+                (rs, i) -> new TermBookingConflict(rs.getString("title"), rs.getString("room_name"),
+                        rs.getTimestamp("start_time").toLocalDateTime(),
+                        rs.getTimestamp("end_time").toLocalDateTime(),
+                        rs.getString("conflict"))));
+
+        if (!touchedRooms.isEmpty()) {
+            eventPublisher.publishEvent(new RoomBookingsBulkChangedEvent(
+                    Set.copyOf(touchedRooms), Set.copyOf(touchedBookers), windowStart, windowEnd));
+        }
+
+        TermGenerationResult result = TermGenerationResult.builder()
+                .from(from)
+                .to(termEnd)
+                .occurrences(occurrences.size())
+                .inserted(inserted)
+                .removed(removed.size())
+                .unchanged(unchanged)
+                .conflicts(List.copyOf(conflicts))
+                .elapsedMillis(System.currentTimeMillis() - started)
+                .build();
+        log.info("Term booking generation {} - {}: {}", from, termEnd, result.getSummary());
+        return result;
+    }
+
+    /**
+     * Two timetabled classes in the same room at the same time: the one sorted first wins. Resolved
+     * in priority order, so an occurrence only loses to one that was itself kept.
+     */
+    private void rejectTimetableClashes() {
+        Map<UUID, TreeMap<LocalDateTime, Kept>> keptByRoom = new HashMap<>();
+        List<Object[]> rejected = new ArrayList<>();
+        jdbcTemplate.query("SELECT room_id, title, start_time, end_time, priority FROM term_occurrences " +
+                "WHERE conflict IS NULL ORDER BY priority", rs -> {
+            TreeMap<LocalDateTime, Kept> kept = keptByRoom.computeIfAbsent(rs.getObject("room_id", UUID.class), id -> new TreeMap<>());
+            LocalDateTime start = rs.getTimestamp("start_time").toLocalDateTime();
+            LocalDateTime end = rs.getTimestamp("end_time").toLocalDateTime();
+            // Kept occurrences never overlap each other, so only the neighbours can clash
+            Map.Entry<LocalDateTime, Kept> before = kept.floorEntry(start);
+            Map.Entry<LocalDateTime, Kept> after = kept.higherEntry(start);
+            Kept clash = before != null && before.getValue().end().isAfter(start) ? before.getValue()
+                    : after != null && after.getKey().isBefore(end) ? after.getValue() : null;
+            if (clash != null) {
+                rejected.add(new Object[]{"Timetable clash with " + clash.title(), rs.getInt("priority")});
+            } else {
+                kept.put(start, new Kept(rs.getString("title"), end));
+            }
+        });
+        for (int i = 0; i < rejected.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("UPDATE term_occurrences SET conflict = ? WHERE priority = ?",
+                    rejected.subList(i, Math.min(i + BATCH_SIZE, rejected.size())));
+        }
+    }
+
+    /**
+     * Expands every room-assigned session into dated occurrences starting at or after
+     * {@code notBefore}, as rows for term_occurrences. Occurrences in a room too small for the class
+     * or that break its booking rules are reported and left out.
+     */
+    private List<Object[]> expandOccurrences(LocalDate from, LocalDate to, LocalDateTime notBefore,
+                                             List<TermBookingConflict> conflicts) {
+        Map<UUID, Long> enrollmentCounts = new HashMap<>();
+        for (Object[] row : enrollmentRepository.countActiveEnrollmentsPerClass()) {
+            enrollmentCounts.put((UUID) row[0], (Long) row[1]);
+        }
+
+        Map<DayOfWeek, List<LocalDate>> datesByDay = new EnumMap<>(DayOfWeek.class);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            datesByDay.computeIfAbsent(date.getDayOfWeek(), d -> new ArrayList<>()).add(date);
+        }
+
+        List<ClassSession> sessions = new ArrayList<>(classSessionRepository.findAllWithRoom());
+        sessions.sort(Comparator.comparing((ClassSession s) -> s.getClass_().getName())
+                .thenComparing(s -> s.getClass_().getId()));
+
+        List<Object[]> rows = new ArrayList<>();
+        int priority = 0;
+        for (ClassSession session : sessions) {
+            Room room = session.getRoom();
+            if (!Boolean.TRUE.equals(room.getIsActive())) {
+                continue;
+            }
+            List<LocalDate> dates = datesByDay.getOrDefault(session.getDay(), List.of());
+            if (dates.isEmpty()) {
+                continue;
+            }
+
+            Class classEntity = session.getClass_();
+            int participants = (int) Math.max(1, enrollmentCounts.getOrDefault(classEntity.getId(), 0L));
+
+            List<BookingCandidate> candidates = new ArrayList<>(dates.size());
+            for (LocalDate date : dates) {
+                if (date.atTime(session.getStartTime()).isBefore(notBefore)) {
+                    continue;
+                }
+                candidates.add(BookingCandidate.builder()
+                        .startTime(date.atTime(session.getStartTime()))
+                        .endTime(date.atTime(session.getEndTime()))
+                        .bookerRole(User.UserRole.TEACHER)
+                        .numberOfParticipants(participants)
+                        .build());
+            }
+            if (room.getCapacity() != null && participants > room.getCapacity()) {
+                String tooSmall = "Room holds " + room.getCapacity() + " but the class has " + participants + " students";
+                for (BookingCandidate candidate : candidates) {
+                    conflicts.add(new TermBookingConflict(classEntity.getName(), room.getName(),
+                            candidate.getStartTime(), candidate.getEndTime(), tooSmall));
+                }
+                continue;
+            }
+            List<String> violations = bookingRuleEngine.checkAll(room, candidates);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                BookingCandidate candidate = candidates.get(i);
+                if (violations.get(i) != null) {
+                    conflicts.add(new TermBookingConflict(classEntity.getName(), room.getName(),
+                            candidate.getStartTime(), candidate.getEndTime(), violations.get(i)));
+                    continue;
+                }
+                rows.add(new Object[]{
+                        classEntity.getId(), room.getId(), classEntity.getTeacher().getId(), classEntity.getName(),
+                        Timestamp.valueOf(candidate.getStartTime()), Timestamp.valueOf(candidate.getEndTime()),
+                        participants, priority++
+                });
+            }
+        }
+        return rows;
+    }
+
+    private record Kept(String title, LocalDateTime end) {
+    }
+}
@@ -0,0 +1,215 @@
+package com.schoolapp.service;
+
+import com.schoolapp.dto.UserPage;
+import com.schoolapp.dto.UserSummary;
+import com.schoolapp.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Admin user listing with keyset pagination over (last_name, first_name, id), so any page costs
+ * the same as the first. Per-role totals come from a small cached count table that is refreshed
+ * after user changes (on every instance) or once {@code count-ttl} has passed.
+ */
+@Service
+@Slf4j
+public class UserDirectoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final String COUNTS_TOPIC = "user-counts";
+    private static final String CURSOR_SEPARATOR = "\u0000";
+    private static final String COLUMNS = "id, first_name, last_name, email, role, student_id, staff_id, " +
+            "phone_number, is_active, created_at";
+
+    private static final RowMapper<UserSummary> SUMMARY_MAPPER = (rs, i) -> UserSummary.builder()
+            .id(rs.getObject("id", UUID.class))
+            .firstName(rs.getString("first_name"))
+            .lastName(rs.getString("last_name"))
+            .email(rs.getString("email"))
+            .role(User.UserRole.valueOf(rs.getString("role")))
+            .studentId(rs.getString("student_id"))
+            .staffId(rs.getString("staff_id"))
+            .phoneNumber(rs.getString("phone_number"))
+            .active(rs.getBoolean("is_active"))
+            .createdAt(rs.getTimestamp("created_at") != null ? rs.getTimestamp("created_at").toLocalDateTime() : null)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterNotificationService clusterNotifications;
+    private final long countTtlNanos;
+
+    private volatile RoleCounts counts;
+
+    public UserDirectoryService(JdbcTemplate jdbcTemplate,
+                                ClusterNotificationService clusterNotifications,
+                                @Value("${app.users.count-ttl:60s}") Duration countTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterNotifications = clusterNotifications;
+        this.countTtlNanos = countTtl.toNanos();
+        clusterNotifications.subscribe(COUNTS_TOPIC, message -> counts = null);
+    }
+
+    /**
+     * @param role   only this role, or all roles when null
+     * @param active only active (true) or inactive (false) users, or both when null
+     * @param search case-insensitive substring of name or email, served by the V15 trigram index
+     * @param after  cursor of the row to continue after, for the next page
+     * @param before cursor of the row to stop before, for the previous page (ignored if after is set)
+     */
+    public UserPage findPage(User.UserRole role, Boolean active, String search,
+                             String after, String before, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String searchText = search == null || search.isBlank() ? null : search.trim().toLowerCase(Locale.ROOT);
+        boolean backwards = after == null && before != null;
+        Cursor cursor = decode(backwards ? before : after);
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM users WHERE true");
+        List<Object> args = new ArrayList<>();
+        if (role != null) {
+            sql.append(" AND role = ?");
+            args.add(role.name());
+        }
+        if (active != null) {
+            sql.append(" AND is_active = ?");
+            args.add(active);
+        }
+        if (searchText != null) {
+            sql.append(" AND search_text LIKE ?");
+            args.add("%" + escapeLike(searchText) + "%");
+        }
+        if (cursor != null) {
+            sql.append(backwards ? " AND (last_name, first_name, id) < (?, ?, ?)"
+                                 : " AND (last_name, first_name, id) > (?, ?, ?)");
+            args.add(cursor.lastName());
+            args.add(cursor.firstName());
+            args.add(cursor.id());
+        }
+        sql.append(backwards ? " ORDER BY last_name DESC, first_name DESC, id DESC"
+                             : " ORDER BY last_name, first_name, id");
+        // One extra row tells whether another page follows
+        sql.append(" LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<UserSummary> rows = new ArrayList<>(jdbcTemplate.query(sql.toString(), SUMMARY_MAPPER, args.toArray()));
+        boolean more = rows.size() > pageSize;
+        if (more) {
+            rows.remove(rows.size() - 1);
+        }
+        if (backwards) {
+            Collections.reverse(rows);
+        }
+
+        String next;
+        String previous;
+        if (backwards) {
+            previous = more ? encode(rows.get(0)) : null;
+            next = rows.isEmpty() ? null : encode(rows.get(rows.size() - 1));
+        } else {
+            next = more ? encode(rows.get(rows.size() - 1)) : null;
+            previous = cursor != null && !rows.isEmpty() ? encode(rows.get(0)) : null;
+        }
+
+        return UserPage.builder()
+                .users(List.copyOf(rows))
+                .nextCursor(next)
+                .previousCursor(previous)
+                .total(searchText == null ? count(role, active) : null)
+                .build();
+    }
+
+    /**
+     * Number of users with the given role and active flag; either may be null for "any".
+     */
+    public long count(User.UserRole role, Boolean active) {
+        long total = 0;
+        for (Map.Entry<User.UserRole, long[]> entry : currentCounts().byRole().entrySet()) {
+            if (role != null && role != entry.getKey()) {
+                continue;
+            }
+            long[] activeInactive = entry.getValue();
+            if (active == null || active) {
+                total += activeInactive[0];
+            }
+            if (active == null || !active) {
+                total += activeInactive[1];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Call after creating users or changing a user's role or active flag.
+     */
+    public void invalidateCounts() {
+        counts = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A reload racing with the transaction could still see the old rows
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counts = null;
+                }
+            });
+        }
+        clusterNotifications.publish(COUNTS_TOPIC, "changed");
+    }
+
+    private RoleCounts currentCounts() {
+        RoleCounts current = counts;
+        if (current != null && System.nanoTime() - current.loadedAt() < countTtlNanos) {
+            return current;
+        }
+        Map<User.UserRole, long[]> byRole = new EnumMap<>(User.UserRole.class);
+        for (User.UserRole role : User.UserRole.values()) {
+            byRole.put(role, new long[2]);
+        }
+        jdbcTemplate.query("SELECT role, COALESCE(is_active, false) AS active, COUNT(*) AS total " +
+                "FROM users GROUP BY role, COALESCE(is_active, false)", rs -> {
+            long[] activeInactive = byRole.get(User.UserRole.valueOf(rs.getString("role")));
+            activeInactive[rs.getBoolean("active") ? 0 : 1] = rs.getLong("total");
+        });
+        current = new RoleCounts(byRole, System.nanoTime());
+        counts = current;
+        return current;
+    }
+
+    private static String encode(UserSummary user) {
+        String raw = user.getLastName() + CURSOR_SEPARATOR + user.getFirstName() + CURSOR_SEPARATOR + user.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(CURSOR_SEPARATOR, 3);
+            return new Cursor(parts[0], parts[1], UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            log.debug("Ignoring malformed user list cursor: {}", cursor);
+            return null;
+        }
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record Cursor(String lastName, String firstName, UUID id) {
+    }
+
+    private record RoleCounts(Map<User.UserRole, long[]> byRole, long loadedAt) {
+    }
+}
@@ -1,9 +1,11 @@
 package com.schoolapp.service;
 
+import com.schoolapp.dto.UserSearchResult;
 import com.schoolapp.model.User;
 import com.schoolapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -12,16 +14,23 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final int MAX_TYPEAHEAD_QUERY = 100;
+    private static final int MAX_TYPEAHEAD_RESULTS = 25;
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserSessionService userSessionService;
+    private final ApiTokenService apiTokenService;
+    private final UserDirectoryService userDirectoryService;
+    private final SecondLevelCacheSync secondLevelCacheSync;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -29,6 +38,21 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
     }
 
+    /**
+     * Stores a re-encoded hash after a successful login, e.g. when the BCrypt strength was raised.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePasswordByEmail(userDetails.getUsername(), newPassword);
+        if (userDetails instanceof User user) {
+            user.setPassword(newPassword);
+            // Bulk JPQL updates skip entity listeners; Hibernate only clears this instance's region
+            secondLevelCacheSync.evictUser(user.getId());
+        }
+        return userDetails;
+    }
+
     @Transactional
     public User createUser(User user) {
         if (userRepository.existsByEmail(user.getEmail())) {
@@ -51,7 +75,9 @@ public class UserService implements UserDetailsService {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setIsActive(true);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDirectoryService.invalidateCounts();
+        return saved;
     }
 
     @Transactional
@@ -96,7 +122,9 @@ public class UserService implements UserDetailsService {
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
 
+        // A password is usually changed because it leaked, so bearer tokens go too
         userSessionService.deactivateAllSessionsForUser(userId);
+        apiTokenService.revokeUser(userId);
     }
 
     @Transactional
@@ -105,6 +133,8 @@ public class UserService implements UserDetailsService {
         user.setIsActive(false);
         userRepository.save(user);
         userSessionService.deactivateAllSessionsForUser(userId);
+        apiTokenService.revokeUser(userId);
+        userDirectoryService.invalidateCounts();
     }
 
     @Transactional
@@ -112,6 +142,7 @@ public class UserService implements UserDetailsService {
         User user = getUserById(userId);
         user.setIsActive(true);
         userRepository.save(user);
+        userDirectoryService.invalidateCounts();
     }
 
     public User getUserById(UUID userId) {
@@ -143,6 +174,23 @@ public class UserService implements UserDetailsService {
         return userRepository.searchUsers(search);
     }
 
+    /**
+     * Top matches for a search box, best first. Blank queries return nothing.
+     */
+    @Transactional(readOnly = true)
+    public List<UserSearchResult> typeahead(String query, User.UserRole role, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.length() > MAX_TYPEAHEAD_QUERY) {
+            normalized = normalized.substring(0, MAX_TYPEAHEAD_QUERY);
+        }
+        String prefix = normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_TYPEAHEAD_RESULTS));
+        return userRepository.typeahead(normalized, prefix, role != null ? role.name() : null, boundedLimit);
+    }
+
     public long countUsersByRole(User.UserRole role) {
         return userRepository.countActiveUsersByRole(role);
     }
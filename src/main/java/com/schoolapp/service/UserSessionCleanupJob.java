@@ -0,0 +1,83 @@
+package com.schoolapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically deletes expired user_sessions rows in small batches. Each batch commits on its own,
+ * so locks are short and autovacuum can keep up; several instances may run this at the same time
+ * because each batch skips rows another instance has locked.
+ */
+@Service
+@Slf4j
+public class UserSessionCleanupJob {
+
+    private final UserSessionService userSessionService;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration retention;
+
+    private final Counter deletedCounter;
+    private final Timer runTimer;
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+
+    public UserSessionCleanupJob(UserSessionService userSessionService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.sessions.cleanup.batch-size:1000}") int batchSize,
+                                 @Value("${app.sessions.cleanup.max-batches:100}") int maxBatches,
+                                 @Value("${app.sessions.cleanup.retention:PT0S}") Duration retention) {
+        this.userSessionService = userSessionService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.retention = retention;
+
+        this.deletedCounter = Counter.builder("user_sessions.cleanup.deleted")
+                .description("Expired user sessions deleted by the cleanup job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("user_sessions.cleanup.duration")
+                .description("Time taken by one run of the session cleanup job")
+                .register(meterRegistry);
+        meterRegistry.gauge("user_sessions.cleanup.last_run.deleted", lastRunDeleted);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sessions.cleanup.interval-ms:600000}",
+            initialDelayString = "${app.sessions.cleanup.initial-delay-ms:60000}")
+    public void cleanupExpiredSessions() {
+        long started = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long deleted = 0;
+        int batches = 0;
+        try {
+            // Capped per run; anything left over is picked up next time
+            while (batches < maxBatches) {
+                int removed = userSessionService.deleteExpiredSessionBatch(cutoff, batchSize);
+                batches++;
+                deleted += removed;
+                deletedCounter.increment(removed);
+                if (removed < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Session cleanup failed after {} batches: {}", batches, e.getMessage(), e);
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            lastRunDeleted.set(deleted);
+            if (deleted > 0) {
+                log.info("Deleted {} expired user sessions in {} batches ({} ms)",
+                        deleted, batches, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        }
+    }
+}
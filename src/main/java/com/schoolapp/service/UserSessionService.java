@@ -1,6 +1,7 @@
 package com.schoolapp.service;
 
 import com.schoolapp.model.UserSession;
+import com.schoolapp.repository.UserRepository;
 import com.schoolapp.repository.UserSessionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -8,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -15,17 +17,21 @@ import java.util.UUID;
 public class UserSessionService {
 
     private final UserSessionRepository userSessionRepository;
+    private final UserRepository userRepository;
+    private final SessionTokenCache sessionTokenCache;
 
     @Transactional
     public UserSession createSession(UUID userId, String sessionToken, LocalDateTime expiresAt) {
         UserSession session = UserSession.builder()
-                .userId(userId)
+                .user(userRepository.getReferenceById(userId))
                 .sessionToken(sessionToken)
                 .expiresAt(expiresAt)
                 .isActive(true)
                 .build();
 
-        return userSessionRepository.save(session);
+        UserSession saved = userSessionRepository.save(session);
+        sessionTokenCache.forgetMissing(sessionToken);
+        return saved;
     }
 
     @Transactional
@@ -34,11 +40,13 @@ public class UserSessionService {
                 .orElseThrow(() -> new RuntimeException("Session not found: " + sessionId));
         session.setIsActive(false);
         userSessionRepository.save(session);
+        sessionTokenCache.evictToken(session.getSessionToken());
     }
 
     @Transactional
     public void deactivateAllSessionsForUser(UUID userId) {
         userSessionRepository.deactivateAllSessionsForUser(userId);
+        sessionTokenCache.evictUser(userId);
     }
 
     @Transactional
@@ -51,8 +59,23 @@ public class UserSessionService {
         userSessionRepository.deleteExpiredSessions(LocalDateTime.now());
     }
 
+    /**
+     * Deletes one batch of sessions that expired before {@code cutoff}, in its own short transaction.
+     */
+    @Transactional
+    public int deleteExpiredSessionBatch(LocalDateTime cutoff, int batchSize) {
+        return userSessionRepository.deleteExpiredSessionsBatch(cutoff, batchSize);
+    }
+
+    /**
+     * Served from {@link SessionTokenCache}; the returned session's user is not initialized.
+     */
     public Optional<UserSession> getValidSession(String sessionToken) {
-        return userSessionRepository.findValidSession(sessionToken, LocalDateTime.now());
+        if (sessionToken == null || sessionToken.isBlank()) {
+            return Optional.empty();
+        }
+        return sessionTokenCache.get(sessionToken,
+                token -> userSessionRepository.findValidSession(token, LocalDateTime.now()));
     }
 
     public List<UserSession> getActiveSessionsByUserId(UUID userId) {
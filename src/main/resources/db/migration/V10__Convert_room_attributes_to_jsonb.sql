@@ -0,0 +1,33 @@
+-- Store room equipment and booking rules as jsonb so they can be indexed and queried structurally
+
+-- Legacy TEXT values are not guaranteed to be valid JSON; keep them as a JSON string instead of failing
+CREATE OR REPLACE FUNCTION pg_temp.to_jsonb_or_string(value TEXT)
+RETURNS JSONB AS $$
+BEGIN
+    IF value IS NULL OR btrim(value) = '' THEN
+        RETURN NULL;
+    END IF;
+    RETURN value::jsonb;
+EXCEPTION WHEN invalid_text_representation THEN
+    RETURN to_jsonb(value);
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE rooms
+    ALTER COLUMN equipment TYPE JSONB USING pg_temp.to_jsonb_or_string(equipment),
+    ALTER COLUMN booking_rules TYPE JSONB USING pg_temp.to_jsonb_or_string(booking_rules);
+
+-- Equipment is always a JSON array of item names
+UPDATE rooms SET equipment = jsonb_build_array(equipment #>> '{}')
+WHERE equipment IS NOT NULL AND jsonb_typeof(equipment) = 'string';
+
+-- Lower-cased copy of the equipment list for case-insensitive containment searches
+ALTER TABLE rooms
+    ADD COLUMN equipment_search JSONB GENERATED ALWAYS AS (lower(equipment::text)::jsonb) STORED;
+
+CREATE INDEX idx_rooms_equipment_search ON rooms USING GIN (equipment_search jsonb_path_ops);
+CREATE INDEX idx_rooms_booking_rules ON rooms USING GIN (booking_rules jsonb_path_ops);
+
+-- Attribute filters only ever look at active rooms
+CREATE INDEX idx_rooms_active_capacity ON rooms(capacity) WHERE is_active = true;
+CREATE INDEX idx_rooms_active_location ON rooms(lower(location) text_pattern_ops) WHERE is_active = true;
@@ -0,0 +1,10 @@
+-- Default booking rules for the science labs (enforced by BookingRuleEngine)
+UPDATE rooms
+SET booking_rules = '{
+    "maxDurationMinutes": 120,
+    "allowedHours": {"start": "07:00", "end": "18:00"},
+    "allowedDays": ["MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"],
+    "allowedRoles": ["TEACHER"],
+    "minLeadTimeMinutes": 60
+}'::jsonb
+WHERE name LIKE 'Makmal %' AND booking_rules IS NULL;
@@ -0,0 +1,131 @@
+-- Normalized weekly timetable, derived from classes.schedule
+CREATE TABLE class_sessions (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    class_id UUID NOT NULL REFERENCES classes(id) ON DELETE CASCADE,
+    day_of_week INTEGER NOT NULL CHECK (day_of_week BETWEEN 1 AND 7), -- ISO, 1 = Monday
+    start_time TIME NOT NULL,
+    end_time TIME NOT NULL,
+    room_id UUID REFERENCES rooms(id) ON DELETE SET NULL,
+    room_label VARCHAR(255), -- room as written in the schedule JSON
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CHECK (end_time > start_time)
+);
+
+-- "Which classes meet now" and "which rooms does the timetable take at this time"
+CREATE INDEX idx_class_sessions_day_time ON class_sessions(day_of_week, start_time, end_time);
+CREATE INDEX idx_class_sessions_room_day ON class_sessions(room_id, day_of_week, start_time) WHERE room_id IS NOT NULL;
+CREATE INDEX idx_class_sessions_class ON class_sessions(class_id);
+
+-- ISO weekday for an English or Malay day name, NULL if unrecognised
+CREATE OR REPLACE FUNCTION iso_day_of_week(day_name TEXT)
+RETURNS INTEGER AS $$
+    SELECT CASE lower(btrim(day_name))
+        WHEN 'monday' THEN 1 WHEN 'mon' THEN 1 WHEN 'isnin' THEN 1
+        WHEN 'tuesday' THEN 2 WHEN 'tue' THEN 2 WHEN 'selasa' THEN 2
+        WHEN 'wednesday' THEN 3 WHEN 'wed' THEN 3 WHEN 'rabu' THEN 3
+        WHEN 'thursday' THEN 4 WHEN 'thu' THEN 4 WHEN 'khamis' THEN 4
+        WHEN 'friday' THEN 5 WHEN 'fri' THEN 5 WHEN 'jumaat' THEN 5
+        WHEN 'saturday' THEN 6 WHEN 'sat' THEN 6 WHEN 'sabtu' THEN 6
+        WHEN 'sunday' THEN 7 WHEN 'sun' THEN 7 WHEN 'ahad' THEN 7
+    END;
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Rebuilds one class's sessions from its schedule JSON. The schedule is either one entry or an
+-- array of entries like {"day": "Monday", "time": "08:00-09:30", "room": "Makmal Bio 1"};
+-- "day" may also be an array of days. Entries that cannot be parsed are skipped.
+CREATE OR REPLACE FUNCTION sync_class_sessions(p_class_id UUID, p_schedule TEXT)
+RETURNS VOID AS $$
+DECLARE
+    doc JSONB;
+    entry JSONB;
+    day_value JSONB;
+    iso_day INTEGER;
+    session_start TIME;
+    session_end TIME;
+    label TEXT;
+BEGIN
+    DELETE FROM class_sessions WHERE class_id = p_class_id;
+
+    IF p_schedule IS NULL OR btrim(p_schedule) = '' THEN
+        RETURN;
+    END IF;
+
+    BEGIN
+        doc := p_schedule::jsonb;
+    EXCEPTION WHEN invalid_text_representation THEN
+        RETURN;
+    END;
+
+    IF jsonb_typeof(doc) = 'object' THEN
+        doc := jsonb_build_array(doc);
+    ELSIF jsonb_typeof(doc) <> 'array' THEN
+        RETURN;
+    END IF;
+
+    FOR entry IN SELECT value FROM jsonb_array_elements(doc) LOOP
+        BEGIN
+            IF entry ? 'time' THEN
+                session_start := btrim(split_part(entry->>'time', '-', 1))::time;
+                session_end := btrim(split_part(entry->>'time', '-', 2))::time;
+            ELSE
+                session_start := (entry->>'start')::time;
+                session_end := (entry->>'end')::time;
+            END IF;
+            label := NULLIF(btrim(entry->>'room'), '');
+
+            FOR day_value IN
+                SELECT CASE WHEN jsonb_typeof(entry->'day') = 'array' THEN d ELSE entry->'day' END
+                FROM jsonb_array_elements(CASE WHEN jsonb_typeof(entry->'day') = 'array'
+                                               THEN entry->'day' ELSE '[null]'::jsonb END) AS d
+            LOOP
+                iso_day := iso_day_of_week(day_value #>> '{}');
+                IF iso_day IS NOT NULL AND session_start IS NOT NULL AND session_end > session_start THEN
+                    INSERT INTO class_sessions (class_id, day_of_week, start_time, end_time, room_id, room_label)
+                    VALUES (p_class_id, iso_day, session_start, session_end,
+                            (SELECT r.id FROM rooms r WHERE lower(r.name) = lower(label) LIMIT 1), label);
+                END IF;
+            END LOOP;
+        EXCEPTION WHEN others THEN
+            RAISE NOTICE 'Skipping unparseable schedule entry % for class %', entry, p_class_id;
+        END;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION classes_sync_sessions()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM sync_class_sessions(NEW.id, NEW.schedule);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER sync_class_sessions_on_insert
+    AFTER INSERT ON classes
+    FOR EACH ROW
+    EXECUTE FUNCTION classes_sync_sessions();
+
+-- JPA rewrites every column on save, so only resync when the schedule text actually changed
+CREATE TRIGGER sync_class_sessions_on_update
+    AFTER UPDATE OF schedule ON classes
+    FOR EACH ROW
+    WHEN (OLD.schedule IS DISTINCT FROM NEW.schedule)
+    EXECUTE FUNCTION classes_sync_sessions();
+
+-- Sessions naming a room that did not exist yet pick it up once it is created or renamed
+CREATE OR REPLACE FUNCTION rooms_resolve_class_sessions()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE class_sessions SET room_id = NEW.id
+    WHERE room_id IS NULL AND lower(room_label) = lower(NEW.name);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER resolve_class_sessions_on_room_save
+    AFTER INSERT OR UPDATE OF name ON rooms
+    FOR EACH ROW
+    EXECUTE FUNCTION rooms_resolve_class_sessions();
+
+-- Backfill existing classes
+SELECT sync_class_sessions(id, schedule) FROM classes WHERE schedule IS NOT NULL;
@@ -0,0 +1,26 @@
+-- Bookings materialized from the class timetable by the term generator
+ALTER TABLE room_bookings ADD COLUMN term_generated BOOLEAN NOT NULL DEFAULT false;
+
+-- Natural key the generator diffs against on re-runs
+CREATE INDEX idx_room_bookings_term_generated ON room_bookings(class_id, room_id, start_time)
+    WHERE term_generated = true;
+
+-- Cancelled bookings must not block the slot they used to hold: only confirmed bookings may not overlap
+DO $$
+DECLARE
+    constraint_name TEXT;
+BEGIN
+    FOR constraint_name IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'room_bookings'::regclass AND contype = 'x'
+    LOOP
+        EXECUTE format('ALTER TABLE room_bookings DROP CONSTRAINT %I', constraint_name);
+    END LOOP;
+END;
+$$;
+
+ALTER TABLE room_bookings ADD CONSTRAINT room_bookings_no_overlap
+    EXCLUDE USING GIST (
+        room_id WITH =,
+        tsrange(start_time, end_time) WITH &&
+    ) WHERE (status = 'CONFIRMED');
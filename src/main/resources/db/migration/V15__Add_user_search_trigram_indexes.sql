@@ -0,0 +1,15 @@
+-- Typeahead search over users: trigram matching on names/email, prefix matching on ids and names
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- One lower-cased string per user so a single GIN index answers "query is similar to a word in it"
+ALTER TABLE users
+    ADD COLUMN search_text TEXT GENERATED ALWAYS AS (lower(first_name || ' ' || last_name || ' ' || email)) STORED;
+
+CREATE INDEX idx_users_search_text_trgm ON users USING GIN (search_text gin_trgm_ops);
+
+-- Prefix matches (LIKE 'abc%'), which trigrams handle poorly for one- and two-character queries
+CREATE INDEX idx_users_student_id_prefix ON users(lower(student_id) text_pattern_ops) WHERE student_id IS NOT NULL;
+CREATE INDEX idx_users_staff_id_prefix ON users(lower(staff_id) text_pattern_ops) WHERE staff_id IS NOT NULL;
+CREATE INDEX idx_users_first_name_prefix ON users(lower(first_name) text_pattern_ops);
+CREATE INDEX idx_users_last_name_prefix ON users(lower(last_name) text_pattern_ops);
+CREATE INDEX idx_users_email_prefix ON users(lower(email) text_pattern_ops);
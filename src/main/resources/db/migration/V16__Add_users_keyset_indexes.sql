@@ -0,0 +1,3 @@
+-- Keyset pagination of the admin user list: ORDER BY last_name, first_name, id
+CREATE INDEX idx_users_name_order ON users(last_name, first_name, id);
+CREATE INDEX idx_users_role_name_order ON users(role, last_name, first_name, id);
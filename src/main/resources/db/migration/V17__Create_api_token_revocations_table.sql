@@ -0,0 +1,12 @@
+-- Revoked API tokens (by token id) and per-user revocations (every token issued before revoked_at).
+-- Rows are only needed until the tokens they cover would have expired anyway.
+CREATE TABLE api_token_revocations (
+    id BIGSERIAL PRIMARY KEY,
+    token_id VARCHAR(64),
+    user_id UUID,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    CHECK (token_id IS NOT NULL OR user_id IS NOT NULL)
+);
+
+CREATE INDEX idx_api_token_revocations_expires ON api_token_revocations(expires_at);
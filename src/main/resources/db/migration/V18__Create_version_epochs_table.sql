@@ -0,0 +1,9 @@
+-- Cluster-wide lower bounds for in-memory version stamps (epoch milliseconds). Every instance
+-- reads and advances the same row, so all of them hand out the same stamps.
+CREATE TABLE version_epochs (
+    name VARCHAR(50) PRIMARY KEY,
+    stamp BIGINT NOT NULL
+);
+
+INSERT INTO version_epochs (name, stamp)
+VALUES ('attendance', (EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) * 1000)::BIGINT);
@@ -0,0 +1,9 @@
+-- The admin user search ("Name, email, student ID or staff ID") matches search_text, which left out the ids.
+-- A generated column's expression cannot be altered, so it is recreated; its trigram index goes with it.
+ALTER TABLE users DROP COLUMN search_text;
+
+ALTER TABLE users
+    ADD COLUMN search_text TEXT GENERATED ALWAYS AS (lower(first_name || ' ' || last_name || ' ' || email
+        || coalesce(' ' || student_id, '') || coalesce(' ' || staff_id, ''))) STORED;
+
+CREATE INDEX idx_users_search_text_trgm ON users USING GIN (search_text gin_trgm_ops);
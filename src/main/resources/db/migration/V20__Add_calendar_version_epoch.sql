@@ -0,0 +1,3 @@
+-- Shared lower bound for the week-calendar versions kept in memory by RoomCalendarService
+INSERT INTO version_epochs (name, stamp)
+VALUES ('calendar', (EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) * 1000)::BIGINT);
@@ -0,0 +1,2 @@
+-- No query filters on booking_rules (rules are read with the room), so the V10 GIN index only costs writes
+DROP INDEX IF EXISTS idx_rooms_booking_rules;
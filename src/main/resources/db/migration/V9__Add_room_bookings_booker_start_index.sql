@@ -0,0 +1,5 @@
+-- Booker-scoped range queries ("my bookings") filter on booker_id and range/order on start_time
+CREATE INDEX idx_room_bookings_booker_start ON room_bookings(booker_id, start_time);
+
+-- Superseded by the composite index above, which has booker_id as its leading column
+DROP INDEX IF EXISTS idx_room_bookings_booker;
@@ -0,0 +1,105 @@
+package com.schoolapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.model.User;
+import com.schoolapp.service.ApiTokenService;
+import com.schoolapp.service.ClusterNotificationService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Per-request cost of bearer-token authentication next to the session path it replaces for API
+ * clients; runs with {@code mvn test -Pperformance} only. The session side is measured against an
+ * in-memory session, so it leaves out the Spring Session JDBC read that a real request also pays:
+ * it is a lower bound for the session path.
+ */
+@Tag("performance")
+class ApiTokenAuthenticationPerformanceTest {
+
+    private static final int ITERATIONS = 50_000;
+
+    private final ApiTokenService apiTokenService = new ApiTokenService(new ObjectMapper(), mock(JdbcTemplate.class),
+            mock(ClusterNotificationService.class), "0123456789abcdef0123456789abcdef", "primary", "", 900_000);
+    private final User user = User.builder()
+            .id(UUID.randomUUID())
+            .email("teacher@school.com")
+            .role(User.UserRole.TEACHER)
+            .firstName("Ada")
+            .lastName("Lovelace")
+            .build();
+
+    @Test
+    void tokenAuthenticationComparedWithSessionLookup() throws Exception {
+        for (int i = 0; i < 10_000; i++) {
+            apiTokenService.revokeUser(UUID.randomUUID());
+        }
+        ApiTokenAuthenticationFilter filter = new ApiTokenAuthenticationFilter(apiTokenService);
+        String token = apiTokenService.issue(user).getToken();
+
+        HttpSessionSecurityContextRepository repository = new HttpSessionSecurityContextRepository();
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities())));
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            authenticateWithToken(filter, token);
+            authenticateWithSession(repository, session);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            authenticateWithToken(filter, token);
+        }
+        Duration perToken = Duration.ofNanos((System.nanoTime() - start) / ITERATIONS);
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            authenticateWithSession(repository, session);
+        }
+        Duration perSession = Duration.ofNanos((System.nanoTime() - start) / ITERATIONS);
+
+        System.out.printf("bearer token: %d ns/request, in-memory session: %d ns/request%n",
+                perToken.toNanos(), perSession.toNanos());
+        // The token costs more CPU than an in-memory session (tens of microseconds against a few), but
+        // needs no database round trip; the bound only catches a regression such as a per-request query
+        assertTrue(perToken.compareTo(Duration.ofMillis(1)) < 0, "token authentication took " + perToken);
+    }
+
+    private static void authenticateWithToken(ApiTokenAuthenticationFilter filter, String token)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/calendar/teachers/me");
+        request.setServletPath("/api/calendar/teachers/me");
+        request.addHeader(HttpHeaders.AUTHORIZATION, ApiTokenService.TOKEN_TYPE + " " + token);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest(), "token was rejected");
+    }
+
+    private static void authenticateWithSession(HttpSessionSecurityContextRepository repository, MockHttpSession session) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/calendar/teachers/me");
+        request.setSession(session);
+        SecurityContext context = repository.loadDeferredContext(request).get();
+        SecurityContextHolder.setContext(context);
+        assertNotNull(context.getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,125 @@
+package com.schoolapp.controller;
+
+import com.schoolapp.model.Class;
+import com.schoolapp.model.User;
+import com.schoolapp.repository.ClassRepository;
+import com.schoolapp.repository.UserRepository;
+import com.schoolapp.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements Hibernate sends for a whole teacher page, before and after the second-level
+ * cache is warm, and the user-counts query cache. Runs against a throwaway PostgreSQL, so it is
+ * skipped without Docker.
+ */
+@SpringBootTest(properties = "app.jwt.secret=0123456789abcdef0123456789abcdef")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class SecondLevelCachePageTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void warmAttendanceHistoryPageSkipsTheClassAndTeacherQueries() throws Exception {
+        User teacher = userRepository.save(newUser(User.UserRole.TEACHER));
+        Class classEntity = classRepository.save(Class.builder()
+                .name("Biologi 5A")
+                .teacher(teacher)
+                .gradeLevel(5)
+                .subject("Biologi")
+                .maxStudents(30)
+                .build());
+        String page = "/teacher/attendance/history?classId=" + classEntity.getId()
+                + "&startDate=2030-01-07&endDate=2030-01-11";
+        entityManagerFactory.getCache().evictAll();
+
+        statistics.clear();
+        mockMvc.perform(get(page).with(user(teacher))).andExpect(status().isOk());
+        long coldStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        mockMvc.perform(get(page).with(user(teacher))).andExpect(status().isOk());
+        long warmStatements = statistics.getPrepareStatementCount();
+
+        // The ownership checks read the class from the cache and only the teacher's id from its proxy
+        assertEquals(0, statistics.getDomainDataRegionStatistics("classes").getMissCount());
+        assertTrue(statistics.getDomainDataRegionStatistics("classes").getHitCount() >= 1);
+        assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getFetchCount());
+        assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+        // Only the attendance queries remain
+        assertTrue(warmStatements < coldStatements,
+                "statements per page: cold " + coldStatements + ", warm " + warmStatements);
+    }
+
+    @Test
+    void userCountsAreServedFromTheQueryCacheUntilUsersChange() {
+        userService.countUsersByRole(User.UserRole.TEACHER);
+        statistics.clear();
+
+        long before = userService.countUsersByRole(User.UserRole.TEACHER);
+        assertEquals(1, statistics.getQueryRegionStatistics("user-counts").getHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        userRepository.save(newUser(User.UserRole.TEACHER));
+        statistics.clear();
+
+        assertEquals(before + 1, userService.countUsersByRole(User.UserRole.TEACHER));
+        assertEquals(0, statistics.getQueryRegionStatistics("user-counts").getHitCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static User newUser(User.UserRole role) {
+        String id = UUID.randomUUID().toString();
+        return User.builder()
+                .email(id + "@school.com")
+                .password("{noop}password")
+                .role(role)
+                .firstName("Test")
+                .lastName(id)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.schoolapp.repository;
+
+import com.schoolapp.model.Room;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations on a throwaway PostgreSQL (skipped without Docker) and checks that
+ * a cached entity is read from the second-level cache the second time.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class SecondLevelCacheTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void secondLoadOfARoomIsACacheHit() {
+        // One of the default rooms from V8
+        UUID roomId = jdbcTemplate.queryForObject("SELECT id FROM rooms ORDER BY name LIMIT 1", UUID.class);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Room first = entityManager.find(Room.class, roomId);
+        // Forget it in the persistence context, so the next find has to go past it
+        entityManager.clear();
+        Room second = entityManager.find(Room.class, roomId);
+
+        assertEquals(first.getName(), second.getName());
+        assertEquals(1, statistics.getEntityLoadCount(), "only the first find reads the database");
+        assertEquals(1, statistics.getSecondLevelCacheMissCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("rooms").getHitCount());
+    }
+}
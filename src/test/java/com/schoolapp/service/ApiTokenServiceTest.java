@@ -0,0 +1,81 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.dto.ApiTokenClaims;
+import com.schoolapp.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ApiTokenServiceTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private ApiTokenService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        service = newService(SECRET);
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .email("teacher@school.com")
+                .role(User.UserRole.TEACHER)
+                .firstName("Ada")
+                .lastName("Lovelace")
+                .build();
+    }
+
+    @Test
+    void rejectsPublishedDefaultSecrets() {
+        assertThrows(IllegalStateException.class, () -> newService("default-secret-key-change-in-production"));
+        assertThrows(IllegalStateException.class, () -> newService("dev-secret-key"));
+    }
+
+    @Test
+    void rejectsShortSecrets() {
+        assertThrows(IllegalStateException.class, () -> newService("too-short"));
+    }
+
+    @Test
+    void tokenIssuedAfterRevocationInTheSameSecondStaysValid() throws InterruptedException {
+        String before = service.issue(user).getToken();
+        Thread.sleep(2);
+        service.revokeUser(user.getId());
+        Thread.sleep(2);
+        String after = service.issue(user).getToken();
+
+        assertTrue(service.verify(before).isEmpty());
+        assertTrue(service.verify(after).isPresent());
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        String token = service.issue(user).getToken();
+        ApiTokenClaims claims = service.verify(token).orElseThrow();
+
+        service.revoke(claims);
+
+        assertTrue(service.verify(token).isEmpty());
+    }
+
+    @Test
+    void unrelatedRevocationsDoNotAffectVerify() {
+        for (int i = 0; i < 10_000; i++) {
+            service.revokeUser(UUID.randomUUID());
+        }
+        String token = service.issue(user).getToken();
+
+        assertTrue(service.verify(token).isPresent());
+    }
+
+    private static ApiTokenService newService(String secret) {
+        return new ApiTokenService(new ObjectMapper(), mock(JdbcTemplate.class),
+                mock(ClusterNotificationService.class), secret, "primary", "", 900_000);
+    }
+}
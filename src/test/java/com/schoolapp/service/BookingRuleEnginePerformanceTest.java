@@ -0,0 +1,64 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.dto.BookingCandidate;
+import com.schoolapp.model.Room;
+import com.schoolapp.model.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wall-clock check of the compiled rules; runs with {@code mvn test -Pperformance} only.
+ */
+@Tag("performance")
+class BookingRuleEnginePerformanceTest {
+
+    private static final String LAB_RULES = """
+            {
+                "maxDurationMinutes": 120,
+                "allowedHours": {"start": "07:00", "end": "18:00"},
+                "allowedDays": ["MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"],
+                "allowedRoles": ["TEACHER"],
+                "minLeadTimeMinutes": 60
+            }""";
+
+    private static final LocalDateTime MONDAY_NINE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private final BookingRuleEngine engine = new BookingRuleEngine(new ObjectMapper());
+    private final Room lab = Room.builder().id(UUID.randomUUID()).name("Makmal Bio 1").bookingRules(LAB_RULES).build();
+
+    @Test
+    void checksTenThousandCandidatesQuickly() {
+        List<BookingCandidate> candidates = new ArrayList<>(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            candidates.add(BookingCandidate.builder()
+                    .startTime(MONDAY_NINE.plusHours(i % 168))
+                    .endTime(MONDAY_NINE.plusHours(i % 168 + 1))
+                    .bookerRole(User.UserRole.TEACHER)
+                    .numberOfParticipants(10)
+                    .requestedAt(MONDAY_NINE.minusDays(7))
+                    .build());
+        }
+        for (int i = 0; i < 20; i++) {
+            engine.checkAll(lab, candidates);
+        }
+
+        int runs = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            engine.checkAll(lab, candidates);
+        }
+        Duration perBatch = Duration.ofNanos((System.nanoTime() - start) / runs);
+
+        // Compiled once per room, so a batch is only comparisons
+        assertTrue(perBatch.compareTo(Duration.ofMillis(100)) < 0, "checkAll took " + perBatch);
+    }
+}
@@ -0,0 +1,77 @@
+package com.schoolapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schoolapp.dto.BookingCandidate;
+import com.schoolapp.model.Room;
+import com.schoolapp.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingRuleEngineTest {
+
+    private static final String LAB_RULES = """
+            {
+                "maxDurationMinutes": 120,
+                "allowedHours": {"start": "07:00", "end": "18:00"},
+                "allowedDays": ["MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"],
+                "allowedRoles": ["TEACHER"],
+                "minLeadTimeMinutes": 60
+            }""";
+
+    // A Monday morning, well ahead of the reference time
+    private static final LocalDateTime MONDAY_NINE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private final BookingRuleEngine engine = new BookingRuleEngine(new ObjectMapper());
+    private final Room lab = Room.builder().id(UUID.randomUUID()).name("Makmal Bio 1").bookingRules(LAB_RULES).build();
+
+    @Test
+    void administratorsAreExemptFromAllowedRoles() {
+        assertTrue(engine.check(lab, candidate(User.UserRole.ADMINISTRATOR, MONDAY_NINE)).isEmpty());
+        assertTrue(engine.check(lab, candidate(User.UserRole.STUDENT, MONDAY_NINE)).isPresent());
+    }
+
+    @Test
+    void leadTimeIsSkippedWithoutRequestedAt() {
+        LocalDateTime soon = MONDAY_NINE.minusMinutes(30);
+        BookingCandidate tooSoon = BookingCandidate.builder()
+                .startTime(MONDAY_NINE).endTime(MONDAY_NINE.plusHours(1))
+                .bookerRole(User.UserRole.TEACHER).requestedAt(soon).build();
+        BookingCandidate unchangedTime = BookingCandidate.builder()
+                .startTime(MONDAY_NINE).endTime(MONDAY_NINE.plusHours(1))
+                .bookerRole(User.UserRole.TEACHER).build();
+
+        assertTrue(engine.check(lab, tooSoon).isPresent());
+        assertTrue(engine.check(lab, unchangedTime).isEmpty());
+    }
+
+    @Test
+    void checksEveryCandidateInABatch() {
+        List<BookingCandidate> candidates = new ArrayList<>(168);
+        for (int i = 0; i < 168; i++) {
+            // Every hour of the week, so every rule both passes and fails somewhere
+            candidates.add(candidate(User.UserRole.TEACHER, MONDAY_NINE.plusHours(i)));
+        }
+
+        List<String> violations = engine.checkAll(lab, candidates);
+
+        assertEquals(candidates.size(), violations.size());
+        assertNull(violations.get(0));
+        assertNotNull(violations.get(120)); // Saturday 09:00
+    }
+
+    private static BookingCandidate candidate(User.UserRole role, LocalDateTime start) {
+        return BookingCandidate.builder()
+                .startTime(start)
+                .endTime(start.plusHours(1))
+                .bookerRole(role)
+                .numberOfParticipants(10)
+                .requestedAt(MONDAY_NINE.minusDays(7))
+                .build();
+    }
+}